@@ -0,0 +1,96 @@
+/*
+ * Copyright (c) 2026 EFDIS AG Bankensoftware, Freising <info@efdis.de>.
+ *
+ * This file is part of the activeTAN app for Android.
+ *
+ * The activeTAN app is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * The activeTAN app is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with the activeTAN app.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package de.efdis.tangenerator.activetan;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.security.GeneralSecurityException;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+
+/**
+ * Signature of the transaction data with a software key, i. e., without the overhead of the
+ * Android key store.
+ */
+@State(Scope.Thread)
+public class AesCbcMacBenchmark {
+
+    private static final String KEY_ALIAS = "benchmark";
+
+    /** Size of the input data for TAN generation: SHA-256 digest + ATC */
+    private final byte[] inputAAC = new byte[33];
+
+    private SecretKeySpec key;
+    private AesCbcMac.KeyIdentity keyIdentity;
+    private SoftwareBankingKeyProvider keyProvider;
+    private Mac mac;
+
+    @Setup(Level.Trial)
+    public void createKey() throws GeneralSecurityException {
+        byte[] secret = new byte[BankingKeyProvider.BANKING_KEY_LENGTH];
+        for (int i = 0; i < secret.length; i++) {
+            secret[i] = (byte) (i * 7 + 3);
+            inputAAC[i] = (byte) i;
+        }
+
+        key = new SecretKeySpec(secret, "AES");
+        keyIdentity = new AesCbcMac.KeyIdentity(KEY_ALIAS);
+
+        keyProvider = new SoftwareBankingKeyProvider();
+        keyProvider.putBankingKey(KEY_ALIAS, secret);
+
+        mac = AesCbcMac.getInstance();
+        mac.init(key);
+    }
+
+    /** MAC computation with an initialized instance */
+    @Benchmark
+    public byte[] doFinal() {
+        return mac.doFinal(inputAAC);
+    }
+
+    /** MAC computation including key setup, without cached sub keys */
+    @Benchmark
+    public byte[] initAndDoFinal() throws GeneralSecurityException {
+        Mac mac = AesCbcMac.getInstance();
+        mac.init(key);
+        return mac.doFinal(inputAAC);
+    }
+
+    /** MAC computation including key setup, with sub keys cached for the key alias */
+    @Benchmark
+    public byte[] initWithKeyIdentityAndDoFinal() throws GeneralSecurityException {
+        Mac mac = AesCbcMac.getInstance();
+        mac.init(key, keyIdentity);
+        return mac.doFinal(inputAAC);
+    }
+
+    /** Complete TAN generation, from the transaction data to the TAN */
+    @Benchmark
+    public int generateTan(ChallengeCorpus corpus) throws GeneralSecurityException {
+        return TanGenerator.generateTan(keyProvider, KEY_ALIAS, 1, corpus.hhduc);
+    }
+
+}
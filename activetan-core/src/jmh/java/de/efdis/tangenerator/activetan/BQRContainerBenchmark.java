@@ -0,0 +1,79 @@
+/*
+ * Copyright (c) 2026 EFDIS AG Bankensoftware, Freising <info@efdis.de>.
+ *
+ * This file is part of the activeTAN app for Android.
+ *
+ * The activeTAN app is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * The activeTAN app is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with the activeTAN app.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package de.efdis.tangenerator.activetan;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Container format of Banking QR codes, which is processed for every QR code detected.
+ */
+@State(Scope.Thread)
+public class BQRContainerBenchmark {
+
+    /** Reused for unwrapping in place, since the scrambled corpus must not be modified */
+    private byte[] scratch = new byte[0];
+
+    @Benchmark
+    public BQRContainer.Content unwrap(ChallengeCorpus corpus) throws BQRContainer.InvalidBankingQrCodeException {
+        return BQRContainer.unwrap(corpus.bqr);
+    }
+
+    @Benchmark
+    public ParseResult<BQRContainer.Content, BQRContainer.UnwrapError> tryUnwrap(ChallengeCorpus corpus) {
+        return BQRContainer.tryUnwrap(corpus.bqr);
+    }
+
+    /** Unwrap a copy of the QR code content in place, without copying the payload */
+    @Benchmark
+    public ParseResult<BQRContainer.Location, BQRContainer.UnwrapError> tryUnwrapInPlace(ChallengeCorpus corpus) {
+        if (scratch.length != corpus.bqr.length) {
+            scratch = new byte[corpus.bqr.length];
+        }
+        System.arraycopy(corpus.bqr, 0, scratch, 0, scratch.length);
+        return BQRContainer.tryUnwrapInPlace(ByteBuffer.wrap(scratch));
+    }
+
+    /** Rejection of other QR codes with an exception */
+    @Benchmark
+    public BQRContainer.InvalidBankingQrCodeException rejectWithException(ChallengeCorpus corpus) {
+        try {
+            BQRContainer.unwrap(corpus.foreignQrCode);
+            throw new IllegalStateException("Foreign QR code has not been rejected");
+        } catch (BQRContainer.InvalidBankingQrCodeException e) {
+            return e;
+        }
+    }
+
+    /** Rejection of other QR codes with an error code */
+    @Benchmark
+    public BQRContainer.UnwrapError rejectWithResult(ChallengeCorpus corpus) {
+        return BQRContainer.tryUnwrap(corpus.foreignQrCode).getError();
+    }
+
+    @Benchmark
+    public byte[] wrap(ChallengeCorpus corpus) {
+        return BQRContainer.wrap(BQRContainer.ContentType.TRANSACTION_DATA, corpus.bqrPayload);
+    }
+
+}
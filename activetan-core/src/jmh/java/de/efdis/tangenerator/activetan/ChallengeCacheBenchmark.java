@@ -0,0 +1,49 @@
+/*
+ * Copyright (c) 2026 EFDIS AG Bankensoftware, Freising <info@efdis.de>.
+ *
+ * This file is part of the activeTAN app for Android.
+ *
+ * The activeTAN app is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * The activeTAN app is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with the activeTAN app.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package de.efdis.tangenerator.activetan;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Repeated detection of the same Banking QR code, which is unwrapped for the listener and then
+ * parsed for display and TAN generation.
+ */
+@State(Scope.Thread)
+public class ChallengeCacheBenchmark {
+
+    private final ChallengeCache cache = new ChallengeCache(4);
+
+    /** Each detection yields a new array, which is handed over to the cache */
+    @Benchmark
+    public ParseResult<HHDucView, HHDuc.ParseError> repeatedDetection(ChallengeCorpus corpus) {
+        byte[] hhduc = cache.unwrap(corpus.bqr.clone()).getValue().getPayload();
+        return cache.parseTransactionData(hhduc);
+    }
+
+    /** The same work without the cache */
+    @Benchmark
+    public ParseResult<HHDucView, HHDuc.ParseError> uncachedDetection(ChallengeCorpus corpus) {
+        byte[] hhduc = BQRContainer.tryUnwrap(corpus.bqr).getValue().getPayload();
+        return HHDucView.tryParse(hhduc);
+    }
+
+}
@@ -0,0 +1,112 @@
+/*
+ * Copyright (c) 2026 EFDIS AG Bankensoftware, Freising <info@efdis.de>.
+ *
+ * This file is part of the activeTAN app for Android.
+ *
+ * The activeTAN app is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * The activeTAN app is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with the activeTAN app.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package de.efdis.tangenerator.activetan;
+
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Realistic transaction challenges for the benchmarks, as they would be scanned from a
+ * Banking QR code.
+ */
+@State(Scope.Benchmark)
+public class ChallengeCorpus {
+
+    private static final String SAMPLE_IBAN = "DE02120300000000202051";
+    private static final String SAMPLE_TEXT = "Müller & Söhne GmbH, Hauptstraße 1, 85354 Freising";
+    private static final BigDecimal SAMPLE_DECIMAL = new BigDecimal("98765.43");
+    private static final long SAMPLE_INTEGER = 1234567890L;
+
+    /**
+     * Visualisation classes with a different number, format and length of data elements.
+     */
+    @Param({
+            "USER_AUTHENTICATION_01",
+            "CREDIT_TRANSFER_SEPA",
+            "COLLECTIVE_TRANSFER_SEPA",
+            "SECURITIES_BUY",
+    })
+    public String visualisationClass;
+
+    /** Parsed transaction data */
+    public HHDuc hhduc;
+
+    /** Encoded transaction data */
+    public byte[] hhducBytes;
+
+    /** Content of the BQR container: AMS flag and transaction data */
+    public byte[] bqrPayload;
+
+    /** Transaction data wrapped in a BQR container, i. e., the content of a QR code */
+    public byte[] bqr;
+
+    /** Content of a QR code, which is no Banking QR code and must be rejected */
+    public byte[] foreignQrCode;
+
+    /** Text of the data elements, as displayed to the user */
+    public String[] dataElementValues;
+
+    @Setup(Level.Trial)
+    public void createChallenge()
+            throws HHDuc.UnsupportedDataFormatException, BQRContainer.InvalidBankingQrCodeException {
+        hhduc = new HHDuc(VisualisationClass.valueOf(visualisationClass));
+        hhduc.setUnpredictableNumber(47110815);
+
+        for (DataElementType type : hhduc.getDataElementTypes()) {
+            if (DataElementType.Format.NUMERIC.equals(type.getFormat())) {
+                if (type.getFractionDigits() > 0) {
+                    hhduc.setDataElement(type, SAMPLE_DECIMAL);
+                } else {
+                    hhduc.setDataElement(type, SAMPLE_INTEGER);
+                }
+            } else if (type.name().startsWith("IBAN_")) {
+                hhduc.setDataElement(type, SAMPLE_IBAN);
+            } else {
+                hhduc.setDataElement(type, SAMPLE_TEXT);
+            }
+        }
+
+        hhducBytes = hhduc.getBytes();
+
+        // No AMS data block
+        bqrPayload = new byte[1 + hhducBytes.length];
+        bqrPayload[0] = 'N';
+        System.arraycopy(hhducBytes, 0, bqrPayload, 1, hhducBytes.length);
+        bqr = BQRContainer.wrap(BQRContainer.ContentType.TRANSACTION_DATA, bqrPayload);
+
+        foreignQrCode = ("https://www.example.com/" + visualisationClass)
+                .getBytes(StandardCharsets.US_ASCII);
+
+        dataElementValues = hhduc.getDataElementTypes().stream()
+                .map(hhduc::getDataElement)
+                .toArray(String[]::new);
+
+        // Fail early, if the corpus cannot be processed
+        HHDuc.parse(hhducBytes);
+        BQRContainer.unwrap(bqr);
+    }
+
+}
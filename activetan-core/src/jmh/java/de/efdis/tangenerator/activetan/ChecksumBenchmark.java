@@ -0,0 +1,59 @@
+/*
+ * Copyright (c) 2026 EFDIS AG Bankensoftware, Freising <info@efdis.de>.
+ *
+ * This file is part of the activeTAN app for Android.
+ *
+ * The activeTAN app is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * The activeTAN app is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with the activeTAN app.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package de.efdis.tangenerator.activetan;
+
+import org.openjdk.jmh.annotations.Benchmark;
+
+import java.util.zip.Checksum;
+
+/**
+ * Checksums of the Banking QR code and the transaction data.
+ */
+public class ChecksumBenchmark {
+
+    private static long checksum(Checksum checksum, byte[] data) {
+        checksum.update(data, 0, data.length);
+        return checksum.getValue();
+    }
+
+    @Benchmark
+    public long crc16(ChallengeCorpus corpus) {
+        return checksum(new CRC16Checksum(0), corpus.bqr);
+    }
+
+    @Benchmark
+    public long luhn(ChallengeCorpus corpus) {
+        return checksum(new LuhnChecksum(), corpus.hhducBytes);
+    }
+
+    @Benchmark
+    public long xor(ChallengeCorpus corpus) {
+        return checksum(new XorChecksum(), corpus.hhducBytes);
+    }
+
+    /** Luhn and XOR checksum in a single pass, as used for HHDuc challenges */
+    @Benchmark
+    public int checkByte(ChallengeCorpus corpus) {
+        HHDCheckByte checkByte = new HHDCheckByte();
+        checkByte.updateData(corpus.hhducBytes, 0, corpus.hhducBytes.length);
+        return checkByte.getValue();
+    }
+
+}
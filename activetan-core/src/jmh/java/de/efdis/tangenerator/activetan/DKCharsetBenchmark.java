@@ -0,0 +1,79 @@
+/*
+ * Copyright (c) 2026 EFDIS AG Bankensoftware, Freising <info@efdis.de>.
+ *
+ * This file is part of the activeTAN app for Android.
+ *
+ * The activeTAN app is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * The activeTAN app is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with the activeTAN app.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package de.efdis.tangenerator.activetan;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Character set conversion of the data elements.
+ */
+@State(Scope.Thread)
+public class DKCharsetBenchmark {
+
+    private byte[][] encodedValues;
+
+    @Setup(Level.Trial)
+    public void encodeValues(ChallengeCorpus corpus) {
+        encodedValues = new byte[corpus.dataElementValues.length][];
+        for (int i = 0; i < encodedValues.length; i++) {
+            encodedValues[i] = corpus.dataElementValues[i].getBytes(DKCharset.INSTANCE);
+        }
+    }
+
+    /** Conversion with the {@link java.nio.charset.Charset} API */
+    @Benchmark
+    public void encode(ChallengeCorpus corpus, Blackhole blackhole) {
+        for (String value : corpus.dataElementValues) {
+            blackhole.consume(value.getBytes(DKCharset.INSTANCE));
+        }
+    }
+
+    /** Conversion with the {@link java.nio.charset.Charset} API */
+    @Benchmark
+    public void decode(Blackhole blackhole) {
+        for (byte[] value : encodedValues) {
+            blackhole.consume(new String(value, DKCharset.INSTANCE));
+        }
+    }
+
+    /** Conversion with the static bulk methods */
+    @Benchmark
+    public void encodeBulk(ChallengeCorpus corpus, Blackhole blackhole) {
+        for (String value : corpus.dataElementValues) {
+            byte[] encoded = new byte[value.length()];
+            DKCharset.encode(value, encoded, 0);
+            blackhole.consume(encoded);
+        }
+    }
+
+    /** Conversion with the static bulk methods */
+    @Benchmark
+    public void decodeBulk(Blackhole blackhole) {
+        for (byte[] value : encodedValues) {
+            blackhole.consume(DKCharset.decode(value, 0, value.length));
+        }
+    }
+
+}
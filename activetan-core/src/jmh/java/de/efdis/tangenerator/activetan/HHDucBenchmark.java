@@ -0,0 +1,49 @@
+/*
+ * Copyright (c) 2026 EFDIS AG Bankensoftware, Freising <info@efdis.de>.
+ *
+ * This file is part of the activeTAN app for Android.
+ *
+ * The activeTAN app is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * The activeTAN app is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with the activeTAN app.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package de.efdis.tangenerator.activetan;
+
+import org.openjdk.jmh.annotations.Benchmark;
+
+/**
+ * Encoding and decoding of transaction data.
+ */
+public class HHDucBenchmark {
+
+    @Benchmark
+    public HHDuc parse(ChallengeCorpus corpus) throws HHDuc.UnsupportedDataFormatException {
+        return HHDuc.parse(corpus.hhducBytes);
+    }
+
+    @Benchmark
+    public HHDucView parseView(ChallengeCorpus corpus) throws HHDuc.UnsupportedDataFormatException {
+        return HHDucView.parse(corpus.hhducBytes);
+    }
+
+    @Benchmark
+    public ParseResult<HHDuc, HHDuc.ParseError> tryParse(ChallengeCorpus corpus) {
+        return HHDuc.tryParse(corpus.hhducBytes);
+    }
+
+    @Benchmark
+    public byte[] getBytes(ChallengeCorpus corpus) {
+        return corpus.hhduc.getBytes();
+    }
+
+}
@@ -0,0 +1,49 @@
+/*
+ * Copyright (c) 2026 EFDIS AG Bankensoftware, Freising <info@efdis.de>.
+ *
+ * This file is part of the activeTAN app for Android.
+ *
+ * The activeTAN app is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * The activeTAN app is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with the activeTAN app.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package de.efdis.tangenerator.activetan;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Derivation of the decimal TAN from the cryptogram and formatting for display.
+ */
+@State(Scope.Thread)
+public class TanFormatBenchmark {
+
+    private final byte[] aac = new byte[] {
+            0x1f, (byte) 0x86, (byte) 0x98, 0x69, 0x0e, 0x02, (byte) 0xca, 0x16,
+            0x61, (byte) 0x85, 0x50, (byte) 0xef, 0x7f, 0x19, (byte) 0xda, (byte) 0x8e
+    };
+
+    private final int tan = 4711;
+
+    @Benchmark
+    public int decimalization() {
+        return TanGenerator.decimalization(aac, 6);
+    }
+
+    @Benchmark
+    public String formatTAN() {
+        return TanGenerator.formatTAN(tan);
+    }
+
+}
@@ -0,0 +1,83 @@
+/*
+ * Copyright (c) 2026 EFDIS AG Bankensoftware, Freising <info@efdis.de>.
+ *
+ * This file is part of the activeTAN app for Android.
+ *
+ * The activeTAN app is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * The activeTAN app is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with the activeTAN app.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package de.efdis.tangenerator.activetan;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+
+/**
+ * Hashing of the transaction data, which is signed by the TAN.
+ */
+@State(Scope.Thread)
+public class VisDataBufferBenchmark {
+
+    private MessageDigest sha256;
+
+    @Setup(Level.Trial)
+    public void createDigest() throws NoSuchAlgorithmException {
+        sha256 = MessageDigest.getInstance("SHA-256");
+    }
+
+    @Benchmark
+    public byte[] buffered(ChallengeCorpus corpus) {
+        VisDataBuffer visData = new VisDataBuffer();
+        visData.write(corpus.hhduc);
+        return visData.getHash(sha256);
+    }
+
+    @Benchmark
+    public byte[] streamed(ChallengeCorpus corpus) {
+        VisDataBuffer visData = new VisDataBuffer(sha256);
+        visData.write(corpus.hhduc);
+        return visData.getHash();
+    }
+
+    @Benchmark
+    public byte[] hashedHeader(ChallengeCorpus corpus) throws NoSuchAlgorithmException {
+        VisDataBuffer visData = VisDataBuffer.withHashedHeader("SHA-256");
+        visData.write(corpus.hhduc);
+        return visData.getHash();
+    }
+
+    /** Validate and hash a scanned challenge, without decoding the data elements */
+    @Benchmark
+    public byte[] parseViewAndHash(ChallengeCorpus corpus)
+            throws HHDuc.UnsupportedDataFormatException, NoSuchAlgorithmException {
+        VisDataBuffer visData = VisDataBuffer.withHashedHeader("SHA-256");
+        visData.write(HHDucView.parse(corpus.hhducBytes));
+        return visData.getHash();
+    }
+
+    /** Same as {@link #parseViewAndHash(ChallengeCorpus)}, with decoding the data elements */
+    @Benchmark
+    public byte[] parseAndHash(ChallengeCorpus corpus)
+            throws HHDuc.UnsupportedDataFormatException, NoSuchAlgorithmException {
+        VisDataBuffer visData = VisDataBuffer.withHashedHeader("SHA-256");
+        visData.write(HHDuc.parse(corpus.hhducBytes));
+        return visData.getHash();
+    }
+
+}
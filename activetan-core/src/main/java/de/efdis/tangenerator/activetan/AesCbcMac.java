@@ -0,0 +1,418 @@
+/*
+ * Copyright (c) 2019 EFDIS AG Bankensoftware, Freising <info@efdis.de>.
+ *
+ * This file is part of the activeTAN app for Android.
+ *
+ * The activeTAN app is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * The activeTAN app is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with the activeTAN app.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package de.efdis.tangenerator.activetan;
+
+import java.nio.ByteBuffer;
+import java.security.GeneralSecurityException;
+import java.security.InvalidAlgorithmParameterException;
+import java.security.InvalidKeyException;
+import java.security.Key;
+import java.security.NoSuchAlgorithmException;
+import java.security.NoSuchProviderException;
+import java.security.Security;
+import java.security.spec.AlgorithmParameterSpec;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import javax.crypto.BadPaddingException;
+import javax.crypto.Cipher;
+import javax.crypto.IllegalBlockSizeException;
+import javax.crypto.Mac;
+import javax.crypto.MacSpi;
+import javax.crypto.ShortBufferException;
+import javax.crypto.spec.IvParameterSpec;
+
+/**
+ * Implementation of RFC 4493
+ */
+public final class AesCbcMac extends MacSpi {
+    public static final String ALGORITHM = "AESMAC";
+
+    public static final class Provider extends java.security.Provider {
+        public static final String NAME = "AesCbcMac.Provider";
+
+        public Provider() {
+            super(NAME, 1.0,
+                    "Implementing RFC 4493");
+
+            put("Mac." + ALGORITHM, AesCbcMac.class.getName());
+        }
+    }
+
+    public static Mac getInstance() {
+        try {
+            return Mac.getInstance(ALGORITHM, Provider.NAME);
+        } catch (NoSuchAlgorithmException | NoSuchProviderException e) {
+            Security.addProvider(new Provider());
+            return getInstance();
+        }
+    }
+
+    /**
+     * Identity of the key for {@link Mac#init(Key, AlgorithmParameterSpec)}.
+     * <p/>
+     * Keys from the Android key store cannot be identified by their key material. If the alias is
+     * provided, the sub keys derived from the key can be reused for subsequent initializations.
+     * <p/>
+     * The alias must always refer to the same key. If the key of an alias is deleted or replaced,
+     * {@link #removeCachedSubKeys(String)} must be called.
+     */
+    public static final class KeyIdentity implements AlgorithmParameterSpec {
+        private final String alias;
+
+        public KeyIdentity(String alias) {
+            if (alias == null) {
+                throw new IllegalArgumentException("alias is missing");
+            }
+            this.alias = alias;
+        }
+
+        public String getAlias() {
+            return alias;
+        }
+    }
+
+    /**
+     * Remove the cached sub keys of a key, e. g., after the key has been deleted.
+     *
+     * @param alias
+     *      Alias as provided with {@link KeyIdentity}
+     */
+    public static void removeCachedSubKeys(String alias) {
+        SUB_KEY_CACHE.remove(alias);
+    }
+
+    private static final int BLOCK_SIZE = 16;
+
+    /** Maximum number of keys in the {@link #SUB_KEY_CACHE} */
+    private static final int MAX_CACHED_KEYS = 16;
+
+    private static final SubKeyCache SUB_KEY_CACHE = new SubKeyCache(MAX_CACHED_KEYS);
+
+    /** The CBC chain of the block cipher always starts with zeros */
+    private static final IvParameterSpec ZERO_IV = new IvParameterSpec(new byte[BLOCK_SIZE]);
+
+    private Cipher blockCipher;
+
+    /** Key of the block cipher, for reinitialization after each message */
+    private Key key;
+
+    /**
+     * Whether the block cipher has been initialized for the current message. The block cipher is
+     * finalized with the last block of each message, which finishes the operation in the key store.
+     */
+    private boolean blockCipherInitialized;
+
+    private final byte[] subKey1 = new byte[BLOCK_SIZE];
+    private final byte[] subKey2 = new byte[BLOCK_SIZE];
+
+    /**
+     * Pending input, which has not been processed yet. The last block must be kept until
+     * {@link #engineDoFinal()}, because it is processed with a sub key.
+     */
+    private final byte[] inputBlock = new byte[BLOCK_SIZE];
+    private int inputBlockLength;
+
+    /** CBC-MAC chaining value of the current message, i. e., the last encrypted block */
+    private final byte[] chainingValue = new byte[BLOCK_SIZE];
+
+    /**
+     * Chaining value inside the block cipher, i. e., the last block returned by the cipher.
+     * <p/>
+     * The block cipher keeps on chaining until it is finalized, e. g., across a reset message. We
+     * remove its chaining value from the input, so it effectively encrypts single blocks.
+     */
+    private final byte[] cipherChainingValue = new byte[BLOCK_SIZE];
+
+    /** Input for the block cipher, prepared by {@link #encryptBlock(byte[], int, boolean)} */
+    private final byte[] cipherInput = new byte[BLOCK_SIZE];
+
+    @Override
+    protected void engineInit(Key key, AlgorithmParameterSpec params) throws InvalidKeyException, InvalidAlgorithmParameterException {
+        if (key == null) {
+            throw new InvalidKeyException("No key provided");
+        }
+
+        if (params != null && !(params instanceof KeyIdentity)) {
+            throw new InvalidAlgorithmParameterException("Unsupported parameters");
+        }
+
+        if (blockCipher == null) {
+            try {
+                blockCipher = Cipher.getInstance("AES/CBC/NoPadding");
+            } catch (GeneralSecurityException e) {
+                throw new InvalidKeyException(
+                        "Cannot initialize AES cipher", e);
+            }
+        }
+
+        this.key = key;
+        try {
+            initBlockCipher();
+        } catch (RuntimeException e) {
+            throw new InvalidKeyException(
+                    "Cannot initialize AES cipher with key provided", e);
+        }
+
+        engineReset();
+
+        // Only keys with an identity are cached, other keys are used for testing only
+        String cacheKey = params == null ? null : ((KeyIdentity) params).getAlias();
+        if (cacheKey != null && SUB_KEY_CACHE.get(cacheKey, subKey1, subKey2)) {
+            return;
+        }
+
+        // AES-Encryption of 128-bit zeros
+        byte[] l = chainingValue;
+        encryptBlock(inputBlock, 0, true);
+
+        // First sub key for final step
+        System.arraycopy(l, 0, subKey1, 0, BLOCK_SIZE);
+        leftShift(subKey1);
+        if ((l[0] & 0x80) != 0) {
+            subKey1[subKey1.length - 1] ^= 0x87;
+        }
+
+        // Second sub key for final step
+        System.arraycopy(subKey1, 0, subKey2, 0, BLOCK_SIZE);
+        leftShift(subKey2);
+        if ((subKey1[0] & 0x80) != 0) {
+            subKey2[subKey2.length - 1] ^= 0x87;
+        }
+
+        engineReset();
+
+        if (cacheKey != null) {
+            SUB_KEY_CACHE.put(cacheKey, subKey1, subKey2);
+        }
+    }
+
+    private void initBlockCipher() {
+        try {
+            blockCipher.init(Cipher.ENCRYPT_MODE, key, ZERO_IV);
+        } catch (GeneralSecurityException e) {
+            throw new RuntimeException(e);
+        }
+
+        Arrays.fill(cipherChainingValue, (byte) 0);
+        blockCipherInitialized = true;
+    }
+
+    /**
+     * Left shift the binary data by 1 bit.
+     * <p/>
+     * The most significant bit of <code>data[0]</code> will be lost.
+     * A new bit <code>false</code> is added as least significant bit of
+     * <code>data[data.length - 1]</code>.
+     *
+     * @param data
+     *      The binary data, which is modified in place.
+     */
+    private static void leftShift(byte[] data) {
+        int carry = 0;
+        for (int i = data.length - 1; i >= 0; i--) {
+            int shiftedByte = ((data[i] & 0xff) << 1) | carry;
+            carry = (shiftedByte & 0x100) >> 8;
+            shiftedByte = shiftedByte & 0xff;
+            data[i] = (byte) shiftedByte;
+        }
+        // final carry (= most significant bit) is discarded
+    }
+
+    @Override
+    protected void engineReset() {
+        // The block cipher need not be reinitialized, since we do the chaining ourselves.
+        // If a message has been started, its operation is finished by the next message.
+        Arrays.fill(inputBlock, (byte) 0);
+        inputBlockLength = 0;
+        Arrays.fill(chainingValue, (byte) 0);
+    }
+
+    @Override
+    protected int engineGetMacLength() {
+        return BLOCK_SIZE;
+    }
+
+    @Override
+    protected void engineUpdate(byte input) {
+        if (inputBlockLength == BLOCK_SIZE) {
+            encryptBlock(inputBlock, 0, false);
+            inputBlockLength = 0;
+        }
+
+        inputBlock[inputBlockLength++] = input;
+    }
+
+    @Override
+    protected void engineUpdate(ByteBuffer input) {
+        if (input.hasArray()) {
+            int length = input.remaining();
+            engineUpdate(input.array(), input.arrayOffset() + input.position(), length);
+            input.position(input.position() + length);
+            return;
+        }
+
+        while (input.hasRemaining()) {
+            if (inputBlockLength == BLOCK_SIZE) {
+                encryptBlock(inputBlock, 0, false);
+                inputBlockLength = 0;
+            }
+
+            int length = Math.min(input.remaining(), BLOCK_SIZE - inputBlockLength);
+            input.get(inputBlock, inputBlockLength, length);
+            inputBlockLength += length;
+        }
+    }
+
+    @Override
+    protected void engineUpdate(byte[] input, int offset, int len) {
+        while (len > 0) {
+            if (inputBlockLength == BLOCK_SIZE) {
+                encryptBlock(inputBlock, 0, false);
+                inputBlockLength = 0;
+            }
+
+            // Process complete blocks directly from the input, but keep the last block
+            while (inputBlockLength == 0 && len > BLOCK_SIZE) {
+                encryptBlock(input, offset, false);
+                offset += BLOCK_SIZE;
+                len -= BLOCK_SIZE;
+            }
+
+            int length = Math.min(len, BLOCK_SIZE - inputBlockLength);
+            System.arraycopy(input, offset, inputBlock, inputBlockLength, length);
+            inputBlockLength += length;
+            offset += length;
+            len -= length;
+        }
+    }
+
+    /**
+     * Process one block of the message and update the {@link #chainingValue}.
+     *
+     * @param finalBlock
+     *      Finalize the block cipher, it is initialized again for the next block.
+     */
+    private void encryptBlock(byte[] block, int offset, boolean finalBlock) {
+        if (!blockCipherInitialized) {
+            initBlockCipher();
+        }
+
+        for (int i = 0; i < BLOCK_SIZE; i++) {
+            cipherInput[i] = (byte) (block[offset + i] ^ chainingValue[i] ^ cipherChainingValue[i]);
+        }
+
+        int length;
+        try {
+            if (finalBlock) {
+                blockCipherInitialized = false;
+                length = blockCipher.doFinal(cipherInput, 0, BLOCK_SIZE, chainingValue, 0);
+            } else {
+                length = blockCipher.update(cipherInput, 0, BLOCK_SIZE, chainingValue, 0);
+            }
+        } catch (ShortBufferException | IllegalBlockSizeException | BadPaddingException e) {
+            // Should not happen, b/c only complete blocks are processed
+            throw new RuntimeException(e);
+        }
+
+        if (length != BLOCK_SIZE) {
+            throw new IllegalStateException(
+                    "AES cipher did not return the encrypted block immediately");
+        }
+
+        System.arraycopy(chainingValue, 0, cipherChainingValue, 0, BLOCK_SIZE);
+    }
+
+    @Override
+    protected byte[] engineDoFinal() {
+        // Choose sub key for final block
+        byte[] subKey;
+        if (inputBlockLength == BLOCK_SIZE) {
+            subKey = subKey1;
+        } else {
+            subKey = subKey2;
+
+            // Padding of final block
+            inputBlock[inputBlockLength] = (byte) 0x80;
+            Arrays.fill(inputBlock, inputBlockLength + 1, BLOCK_SIZE, (byte) 0x00);
+        }
+
+        for (int i = 0; i < BLOCK_SIZE; i++) {
+            inputBlock[i] ^= subKey[i];
+        }
+        encryptBlock(inputBlock, 0, true);
+
+        byte[] mac = chainingValue.clone();
+        engineReset();
+        return mac;
+    }
+
+    /**
+     * Bounded cache for the sub keys of recently used keys.
+     * <p/>
+     * The sub keys are erased from memory once they are removed from the cache.
+     */
+    private static final class SubKeyCache {
+        private final LinkedHashMap<String, byte[]> entries;
+
+        private SubKeyCache(final int maxEntries) {
+            entries = new LinkedHashMap<String, byte[]>(maxEntries, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<String, byte[]> eldest) {
+                    if (size() > maxEntries) {
+                        Arrays.fill(eldest.getValue(), (byte) 0);
+                        return true;
+                    }
+                    return false;
+                }
+            };
+        }
+
+        synchronized boolean get(String cacheKey, byte[] subKey1, byte[] subKey2) {
+            byte[] subKeys = entries.get(cacheKey);
+            if (subKeys == null) {
+                return false;
+            }
+
+            System.arraycopy(subKeys, 0, subKey1, 0, BLOCK_SIZE);
+            System.arraycopy(subKeys, BLOCK_SIZE, subKey2, 0, BLOCK_SIZE);
+            return true;
+        }
+
+        synchronized void put(String cacheKey, byte[] subKey1, byte[] subKey2) {
+            byte[] subKeys = new byte[2 * BLOCK_SIZE];
+            System.arraycopy(subKey1, 0, subKeys, 0, BLOCK_SIZE);
+            System.arraycopy(subKey2, 0, subKeys, BLOCK_SIZE, BLOCK_SIZE);
+
+            byte[] replaced = entries.put(cacheKey, subKeys);
+            if (replaced != null) {
+                Arrays.fill(replaced, (byte) 0);
+            }
+        }
+
+        synchronized void remove(String cacheKey) {
+            byte[] removed = entries.remove(cacheKey);
+            if (removed != null) {
+                Arrays.fill(removed, (byte) 0);
+            }
+        }
+    }
+}
@@ -0,0 +1,395 @@
+/*
+ * Copyright (c) 2021 EFDIS AG Bankensoftware, Freising <info@efdis.de>.
+ *
+ * This file is part of the activeTAN app for Android.
+ *
+ * The activeTAN app is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * The activeTAN app is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with the activeTAN app.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package de.efdis.tangenerator.activetan;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+/**
+ * Container format for Banking QR codes
+ */
+public class BQRContainer {
+    public enum ContentType {
+        /**
+         * Key material (HDDkm wrapper) for TAN generator initialization,
+         * as defined by EFDIS AG and REINER SCT in the activeTAN specification.
+         */
+        KEY_MATERIAL("KM"),
+
+        /**
+         * Transaction data (HHDuc wrapper) as defined in the chipTAN specification
+         * “HandHeld-Device (HHD) zur TAN-Erzeugung - HHD-Erweiterung für optische Schnittstellen”
+         * version 1.5.1 published by Deutsche Kreditwirtschaft (DK).
+         */
+        TRANSACTION_DATA("DK"),
+        ;
+
+        private final String prefix;
+
+        /** {@link #prefix} encoded with the {@link DKCharset}, must not be modified */
+        private final byte[] prefixBytes;
+
+        ContentType(String prefix) {
+            this.prefix = prefix;
+            this.prefixBytes = DKCharset.toBytes(prefix);
+        }
+
+        public String getPrefix() {
+            return prefix;
+        }
+
+        public byte[] getPrefixBytes() {
+            return prefixBytes.clone();
+        }
+
+
+        public static ContentType valueOfPrefixBytes(byte[] prefix) {
+            ContentType contentType = prefix.length == 2 ? forPrefix(prefix[0], prefix[1]) : null;
+            if (contentType == null) {
+                throw new IllegalArgumentException("Unknown prefix");
+            }
+            return contentType;
+        }
+
+        /**
+         * @return
+         *      <code>null</code>, if the prefix is unknown.
+         */
+        static ContentType forPrefix(byte first, byte second) {
+            // The prefixes are plain ASCII, i. e., the same in the DKCharset
+            switch ((first & 0xff) << 8 | (second & 0xff)) {
+                case 'K' << 8 | 'M':
+                    return KEY_MATERIAL;
+                case 'D' << 8 | 'K':
+                    return TRANSACTION_DATA;
+                default:
+                    return null;
+            }
+        }
+    }
+
+    /**
+     * Content of an unwrapped BQR container
+     */
+    public static final class Content {
+        private final ContentType contentType;
+        private final byte[] payload;
+
+        Content(ContentType contentType, byte[] payload) {
+            this.contentType = contentType;
+            this.payload = payload;
+        }
+
+        public ContentType getContentType() {
+            return contentType;
+        }
+
+        public byte[] getPayload() {
+            return payload;
+        }
+    }
+
+    /**
+     * @see #tryUnwrap(byte[])
+     */
+    public static Content unwrap(byte[] bqr) throws InvalidBankingQrCodeException {
+        ParseResult<Content, UnwrapError> result = tryUnwrap(bqr);
+        if (!result.isSuccess()) {
+            throw new InvalidBankingQrCodeException(result.getError());
+        }
+        return result.getValue();
+    }
+
+    /**
+     * Position of the payload in a BQR container, which has been unwrapped in place.
+     */
+    public static final class Location {
+        private final ContentType contentType;
+        private final ByteBuffer buffer;
+        private final int payloadOffset;
+        private final int payloadLength;
+
+        Location(ContentType contentType, ByteBuffer buffer, int payloadOffset, int payloadLength) {
+            this.contentType = contentType;
+            this.buffer = buffer;
+            this.payloadOffset = payloadOffset;
+            this.payloadLength = payloadLength;
+        }
+
+        public ContentType getContentType() {
+            return contentType;
+        }
+
+        /** Absolute index of the payload's first byte in the buffer */
+        public int getPayloadOffset() {
+            return payloadOffset;
+        }
+
+        public int getPayloadLength() {
+            return payloadLength;
+        }
+
+        /**
+         * @return
+         *      New buffer, which shares the payload with the unwrapped buffer.
+         */
+        public ByteBuffer getPayload() {
+            ByteBuffer payload = buffer.duplicate();
+            payload.limit(payloadOffset + payloadLength);
+            payload.position(payloadOffset);
+            return payload.slice();
+        }
+    }
+
+    /**
+     * Unwrap a BQR container without throwing an exception for invalid data, which is common for
+     * QR codes of other applications.
+     *
+     * @see #unwrap(byte[])
+     */
+    public static ParseResult<Content, UnwrapError> tryUnwrap(byte[] scrambledBqr) {
+        // Unscramble a copy, the caller's data is not modified
+        byte[] bqr = scrambledBqr.clone();
+
+        ParseResult<Location, UnwrapError> result = tryUnwrapInPlace(ByteBuffer.wrap(bqr));
+        if (!result.isSuccess()) {
+            return ParseResult.failure(result.getError());
+        }
+
+        Location location = result.getValue();
+        return ParseResult.success(new Content(location.getContentType(),
+                Arrays.copyOfRange(bqr, location.getPayloadOffset(),
+                        location.getPayloadOffset() + location.getPayloadLength())));
+    }
+
+    /**
+     * Unwrap a BQR container without copying it. The container is unscrambled and its checksum
+     * verified in a single pass, then the payload is located.
+     *
+     * @param bqr
+     *      Writable buffer with the scrambled BQR container between its position and limit.
+     *      The content is unscrambled in place, the position and limit are not changed. If the
+     *      result is a failure, the content is undefined.
+     */
+    public static ParseResult<Location, UnwrapError> tryUnwrapInPlace(ByteBuffer bqr) {
+        final int start = bqr.position();
+        final int length = bqr.remaining();
+
+        if (length < 2) {
+            return ParseResult.failure(UnwrapError.MISSING_PREFIX);
+        }
+        if (length < 4) {
+            return ParseResult.failure(UnwrapError.MISSING_CHECKSUM);
+        }
+
+        final int actualChecksum;
+        if (bqr.hasArray()) {
+            actualChecksum = unscrambleWithCrc16(bqr.array(), bqr.arrayOffset() + start, length);
+        } else {
+            actualChecksum = unscrambleWithCrc16(bqr, start, length);
+        }
+
+        // 2 bytes prefix
+        // wrapped content
+        // 2 bytes CRC-16
+        int pos = start + 2;
+        final int end = start + length - 2;
+
+        final int expectedChecksum = ((bqr.get(end) & 0xff) << 8) | (bqr.get(end + 1) & 0xff);
+        if (expectedChecksum != actualChecksum) {
+            return ParseResult.failure(UnwrapError.WRONG_CHECKSUM);
+        }
+
+        if (pos == end) {
+            return ParseResult.failure(UnwrapError.EMPTY);
+        }
+
+        ContentType contentType = ContentType.forPrefix(bqr.get(start), bqr.get(start + 1));
+        if (contentType == null) {
+            return ParseResult.failure(UnwrapError.UNKNOWN_PREFIX);
+        }
+
+        switch (contentType) {
+            case TRANSACTION_DATA: {
+                // 'DK' prefix: chipTAN QR codes with transaction data
+                final boolean amsFlag;
+                switch (bqr.get(pos++)) {
+                    case 0x4e: // N
+                        amsFlag = false;
+                        break;
+                    case 0x4a: // J
+                        amsFlag = true;
+                        break;
+                    default:
+                        return ParseResult.failure(UnwrapError.INVALID_AMS_FLAG);
+                }
+
+                // HHDuc data block, followed by the optional AMS data block,
+                // whose content is ignored
+                final int hhducStart = pos;
+                int hhducEnd = pos;
+                for (int block = 0; block < (amsFlag ? 2 : 1); block++) {
+                    if (pos == end) {
+                        return ParseResult.failure(UnwrapError.MISSING_DATA_BLOCK);
+                    }
+
+                    // according to specification, maximum length is limited to 255 Bytes
+                    int blockLength = bqr.get(pos) & 0xff;
+                    if (end - pos - 1 < blockLength) {
+                        return ParseResult.failure(UnwrapError.DATA_BLOCK_TOO_LONG);
+                    }
+                    pos += 1 + blockLength;
+
+                    if (block == 0) {
+                        hhducEnd = pos;
+                    }
+                }
+
+                if (pos < end) {
+                    return ParseResult.failure(UnwrapError.UNEXPECTED_DATA);
+                }
+
+                return ParseResult.success(
+                        new Location(contentType, bqr, hhducStart, hhducEnd - hhducStart));
+            }
+
+            case KEY_MATERIAL:
+                // 'KM' prefix: key material for device initialization
+                return ParseResult.success(new Location(contentType, bqr, pos, end - pos));
+
+            default:
+                return ParseResult.failure(UnwrapError.UNKNOWN_PREFIX);
+        }
+    }
+
+    public static byte[] wrap(ContentType contentType, byte[] payload) {
+        // 2 bytes prefix
+        // wrapped content
+        // 2 bytes CRC-16
+        byte[] bqr = new byte[payload.length + 4];
+
+        bqr[0] = contentType.prefixBytes[0];
+        bqr[1] = contentType.prefixBytes[1];
+
+        System.arraycopy(payload, 0, bqr, 2, payload.length);
+
+        int checksum = CRC16Checksum.crc16(bqr, 0, bqr.length - 2);
+        bqr[bqr.length - 2] = (byte) ((checksum & 0xff00) >> 8);
+        bqr[bqr.length - 1] = (byte) (checksum & 0x00ff);
+
+        // We need to scramble the content, which is the same operation like unscrambling
+        for (int i = 2; i < bqr.length; i++) {
+            bqr[i] ^= bqr[i % 2];
+        }
+
+        return bqr;
+    }
+
+    /**
+     * Number of bytes, which are unscrambled and then checksummed while they are in the CPU cache.
+     */
+    private static final int UNSCRAMBLE_CHUNK_LENGTH = 64;
+
+    /**
+     * Unscramble a BQR container in place and compute the CRC-16 checksum of the unscrambled
+     * prefix and content.
+     *
+     * @param len
+     *      Length of the container including the prefix and the checksum.
+     */
+    private static int unscrambleWithCrc16(byte[] bqr, int off, int len) {
+        final byte key0 = bqr[off];
+        final byte key1 = bqr[off + 1];
+        final int checksumOffset = off + len - 2;
+
+        int crc = CRC16Checksum.update(0, bqr, off, 2);
+        for (int chunk = off + 2; chunk < checksumOffset; chunk += UNSCRAMBLE_CHUNK_LENGTH) {
+            final int chunkEnd = Math.min(chunk + UNSCRAMBLE_CHUNK_LENGTH, checksumOffset);
+            for (int i = chunk; i < chunkEnd; i++) {
+                bqr[i] ^= ((i - off) & 1) == 0 ? key0 : key1;
+            }
+            crc = CRC16Checksum.update(crc, bqr, chunk, chunkEnd - chunk);
+        }
+
+        for (int i = checksumOffset; i < off + len; i++) {
+            bqr[i] ^= ((i - off) & 1) == 0 ? key0 : key1;
+        }
+
+        return crc;
+    }
+
+    /**
+     * @see #unscrambleWithCrc16(byte[], int, int)
+     */
+    private static int unscrambleWithCrc16(ByteBuffer bqr, int off, int len) {
+        final byte key0 = bqr.get(off);
+        final byte key1 = bqr.get(off + 1);
+        final int checksumOffset = off + len - 2;
+
+        int crc = CRC16Checksum.update(CRC16Checksum.update(0, key0), key1);
+        for (int i = off + 2; i < off + len; i++) {
+            byte b = (byte) (bqr.get(i) ^ (((i - off) & 1) == 0 ? key0 : key1));
+            bqr.put(i, b);
+            if (i < checksumOffset) {
+                crc = CRC16Checksum.update(crc, b);
+            }
+        }
+
+        return crc;
+    }
+
+    /** Reasons for rejecting a BQR container */
+    public enum UnwrapError {
+        MISSING_PREFIX("No BQR container prefix, data too short"),
+        MISSING_CHECKSUM("No BQR container checksum, data too short"),
+        WRONG_CHECKSUM("CRC-16 checksum is wrong"),
+        EMPTY("Empty BQR container"),
+        UNKNOWN_PREFIX("Unknown BQR prefix"),
+        INVALID_AMS_FLAG("Invalid AMS flag value"),
+        MISSING_DATA_BLOCK("No data block available"),
+        DATA_BLOCK_TOO_LONG("Declared block length is too large"),
+        UNEXPECTED_DATA("Unexpected data after last block found"),
+        ;
+
+        private final String message;
+
+        UnwrapError(String message) {
+            this.message = message;
+        }
+
+        public String getMessage() {
+            return message;
+        }
+    }
+
+    public static class InvalidBankingQrCodeException extends Exception {
+        private final UnwrapError error;
+
+        InvalidBankingQrCodeException(UnwrapError error) {
+            super(error.getMessage());
+            this.error = error;
+        }
+
+        public UnwrapError getError() {
+            return error;
+        }
+    }
+
+}
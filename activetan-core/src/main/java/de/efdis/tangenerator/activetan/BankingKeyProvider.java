@@ -0,0 +1,69 @@
+/*
+ * Copyright (c) 2026 EFDIS AG Bankensoftware, Freising <info@efdis.de>.
+ *
+ * This file is part of the activeTAN app for Android.
+ *
+ * The activeTAN app is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * The activeTAN app is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with the activeTAN app.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package de.efdis.tangenerator.activetan;
+
+import java.security.KeyStoreException;
+
+import javax.crypto.SecretKey;
+
+/**
+ * Source of the secret banking keys for TAN generation.
+ */
+public interface BankingKeyProvider {
+
+    /** Length of the AES banking key in bytes */
+    int BANKING_KEY_LENGTH = 16;
+
+    /**
+     * Load the secret banking key of a banking token.
+     *
+     * @param keyAlias
+     *      Alias of the banking token's key.
+     * @return
+     *      <code>null</code>, if the key is missing or permanently destroyed. Otherwise, the caller
+     *      should close the key as soon as it is no longer needed.
+     * @throws KeyStoreException
+     *      If the keys cannot be accessed.
+     */
+    BankingKey getBankingKey(String keyAlias) throws KeyStoreException;
+
+    /**
+     * Handle for a secret banking key, which can be used in a try-with-resources statement.
+     */
+    interface BankingKey extends AutoCloseable {
+
+        SecretKey getKeyMaterial();
+
+        /**
+         * Identity of the key for {@link AesCbcMac}.
+         *
+         * @return
+         *      <code>null</code>, if the sub keys of the key shall not be cached.
+         */
+        default AesCbcMac.KeyIdentity getKeyIdentity() {
+            return null;
+        }
+
+        /** Unreference the key material */
+        @Override
+        void close();
+    }
+
+}
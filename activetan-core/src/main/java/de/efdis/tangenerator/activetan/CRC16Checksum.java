@@ -0,0 +1,143 @@
+/*
+ * Copyright (c) 2019 EFDIS AG Bankensoftware, Freising <info@efdis.de>.
+ *
+ * This file is part of the activeTAN app for Android.
+ *
+ * The activeTAN app is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * The activeTAN app is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with the activeTAN app.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package de.efdis.tangenerator.activetan;
+
+import java.nio.ByteBuffer;
+import java.util.zip.Checksum;
+
+public class CRC16Checksum implements Checksum {
+    /** Polynomial x^16 + x^15 + x^2 + 1 with LSB */
+    private static final int DIVISOR = 0xa001;
+
+    /**
+     * XOR lookup tables for slicing-by-8.
+     * <p/>
+     * The table at offset <code>256 * k</code> contains the CRC of a byte followed by
+     * <code>k</code> zero bytes. Table 0 is the classic byte-wise lookup table.
+     */
+    private static final int[] TABLE = createLookupTable();
+
+    private final int initialValue;
+
+    private int crc;
+
+    public CRC16Checksum(int initialValue) {
+        this.initialValue = initialValue;
+        reset();
+    }
+
+    private static int[] createLookupTable() {
+        int[] table = new int[8 * 256];
+        for (int idx = 0; idx < 256; idx++) {
+            int value = idx;
+            for (int bit = 0; bit < 8; bit++) {
+                if ((value & 1) != 0)
+                    value = (value >> 1) ^ DIVISOR;
+                else
+                    value = (value >> 1);
+            }
+            table[idx] = value;
+        }
+        for (int idx = 256; idx < table.length; idx++) {
+            int previous = table[idx - 256];
+            table[idx] = (previous >> 8) ^ table[previous & 0xff];
+        }
+        return table;
+    }
+
+    /**
+     * Compute the CRC-16 checksum of a byte array with initial value 0, without allocating
+     * a {@link CRC16Checksum} object.
+     */
+    public static int crc16(byte[] b, int off, int len) {
+        if (off < 0 || len < 0 || off > b.length - len) {
+            throw new ArrayIndexOutOfBoundsException();
+        }
+        return update(0, b, off, len);
+    }
+
+    static int update(int crc, int b) {
+        return (crc >> 8) ^ TABLE[(crc ^ b) & 0xff];
+    }
+
+    static int update(int crc, byte[] b, int off, int len) {
+        final int[] table = TABLE;
+        int idx = off;
+        final int end = off + len;
+
+        for (; idx <= end - 8; idx += 8) {
+            crc ^= (b[idx] & 0xff) | (b[idx + 1] & 0xff) << 8;
+            crc = table[7 * 256 + (crc & 0xff)]
+                    ^ table[6 * 256 + ((crc >> 8) & 0xff)]
+                    ^ table[5 * 256 + (b[idx + 2] & 0xff)]
+                    ^ table[4 * 256 + (b[idx + 3] & 0xff)]
+                    ^ table[3 * 256 + (b[idx + 4] & 0xff)]
+                    ^ table[2 * 256 + (b[idx + 5] & 0xff)]
+                    ^ table[256 + (b[idx + 6] & 0xff)]
+                    ^ table[b[idx + 7] & 0xff];
+        }
+
+        for (; idx < end; idx++) {
+            crc = (crc >> 8) ^ table[(crc ^ b[idx]) & 0xff];
+        }
+
+        return crc;
+    }
+
+    @Override
+    public void reset() {
+        crc = initialValue;
+    }
+
+    @Override
+    public void update(int b) {
+        crc = update(crc, b);
+    }
+
+    @Override
+    public void update(byte[] b, int off, int len) {
+        int start = Math.max(0, off);
+        int end = Math.min(b.length, off + len);
+        if (start < end) {
+            crc = update(crc, b, start, end - start);
+        }
+    }
+
+    @Override
+    public void update(ByteBuffer buffer) {
+        int position = buffer.position();
+        int limit = buffer.limit();
+
+        if (buffer.hasArray()) {
+            crc = update(crc, buffer.array(), buffer.arrayOffset() + position, limit - position);
+        } else {
+            for (int idx = position; idx < limit; idx++) {
+                update(buffer.get(idx));
+            }
+        }
+
+        buffer.position(limit);
+    }
+
+    @Override
+    public long getValue() {
+        return crc;
+    }
+}
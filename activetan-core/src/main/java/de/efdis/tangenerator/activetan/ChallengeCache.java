@@ -0,0 +1,233 @@
+/*
+ * Copyright (c) 2026 EFDIS AG Bankensoftware, Freising <info@efdis.de>.
+ *
+ * This file is part of the activeTAN app for Android.
+ *
+ * The activeTAN app is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * The activeTAN app is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with the activeTAN app.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package de.efdis.tangenerator.activetan;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+/**
+ * Recently scanned challenges with transaction data.
+ * <p/>
+ * The camera detects the same QR code again and again, e. g., each time the scanner is resumed,
+ * and the banking app API passes the same challenge again if the user repeats the TAN generation.
+ * Instead of unwrapping and parsing identical data again, the validated challenge is taken from
+ * this cache.
+ * <p/>
+ * BQR containers are looked up by their CRC-16 checksum and length, which can be read without
+ * unscrambling. Since different challenges may well have the same checksum, a match is always
+ * confirmed by comparing the complete content.
+ * <p/>
+ * Key material is never cached, because it contains secret key components and is only scanned
+ * once during initialization.
+ */
+public final class ChallengeCache {
+
+    /** Number of challenges to remember */
+    private static final int DEFAULT_CAPACITY = 4;
+
+    /** Containers shorter than prefix and checksum cannot be cached */
+    static final int NO_FINGERPRINT = -1;
+
+    private static final ChallengeCache INSTANCE = new ChallengeCache(DEFAULT_CAPACITY);
+
+    private static final class Entry {
+        /** Unscrambled BQR container, <code>null</code> if the challenge has not been scanned */
+        byte[] bqr;
+
+        /** @see #fingerprint(byte[]) */
+        int fingerprint = NO_FINGERPRINT;
+
+        /** Transaction data, which is shared with {@link #parsed} and never modified */
+        final byte[] rawHHDuc;
+
+        /** Result of parsing {@link #rawHHDuc}, <code>null</code> until it is requested */
+        ParseResult<HHDucView, HHDuc.ParseError> parsed;
+
+        Entry(byte[] rawHHDuc) {
+            this.rawHHDuc = rawHHDuc;
+        }
+    }
+
+    /** Cached challenges, the most recently used first */
+    private final Entry[] entries;
+    private int size;
+
+    ChallengeCache(int capacity) {
+        entries = new Entry[capacity];
+    }
+
+    public static ChallengeCache getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * Unwrap a BQR container, unless an identical container has already been unwrapped.
+     *
+     * @param bqr
+     *      Scrambled BQR container, e. g., the content of a QR code. If it is not found in the
+     *      cache, it is unscrambled in place and kept by the cache. The caller must not use or
+     *      modify the array afterwards.
+     * @return
+     *      The container's content, with a new copy of the payload.
+     * @see BQRContainer#tryUnwrap(byte[])
+     */
+    public synchronized ParseResult<BQRContainer.Content, BQRContainer.UnwrapError> unwrap(byte[] bqr) {
+        int fingerprint = fingerprint(bqr);
+        if (fingerprint != NO_FINGERPRINT) {
+            for (int i = 0; i < size; i++) {
+                Entry entry = entries[i];
+                if (entry.fingerprint == fingerprint && matchesScrambled(entry.bqr, bqr)) {
+                    moveToFront(i);
+                    return ParseResult.success(new BQRContainer.Content(
+                            BQRContainer.ContentType.TRANSACTION_DATA, entry.rawHHDuc.clone()));
+                }
+            }
+        }
+
+        ParseResult<BQRContainer.Location, BQRContainer.UnwrapError> result
+                = BQRContainer.tryUnwrapInPlace(ByteBuffer.wrap(bqr));
+        if (!result.isSuccess()) {
+            return ParseResult.failure(result.getError());
+        }
+
+        BQRContainer.Location location = result.getValue();
+        byte[] payload = Arrays.copyOfRange(bqr, location.getPayloadOffset(),
+                location.getPayloadOffset() + location.getPayloadLength());
+
+        if (location.getContentType() == BQRContainer.ContentType.TRANSACTION_DATA) {
+            Entry entry = lookup(payload);
+            entry.bqr = bqr;
+            entry.fingerprint = fingerprint;
+        }
+
+        return ParseResult.success(new BQRContainer.Content(location.getContentType(), payload));
+    }
+
+    /**
+     * Parse transaction data, unless identical data has already been parsed.
+     *
+     * @param rawHHDuc
+     *      Transaction data, e. g., from {@link #unwrap(byte[])}. The array is not modified.
+     * @return
+     *      The same result for identical data. The parsed challenge is immutable and can be
+     *      shared.
+     * @see HHDucView#tryParse(byte[])
+     */
+    public synchronized ParseResult<HHDucView, HHDuc.ParseError> parseTransactionData(byte[] rawHHDuc) {
+        Entry entry = lookup(rawHHDuc);
+        if (entry.parsed == null) {
+            entry.parsed = HHDucView.tryParse(entry.rawHHDuc);
+        }
+        return entry.parsed;
+    }
+
+    /**
+     * Forget all challenges, e. g., when the transaction has been confirmed or declined, so that
+     * the transaction details are not kept in memory for the lifetime of the process. The cache
+     * must not be cleared before, because the banking app API passes the same challenge again,
+     * if the user returns to the TAN generation.
+     * <p/>
+     * The scanned containers are overwritten with zeros. The transaction data is only
+     * unreferenced, because parsed challenges may still be in use.
+     */
+    public synchronized void clear() {
+        for (int i = 0; i < size; i++) {
+            if (entries[i].bqr != null) {
+                Arrays.fill(entries[i].bqr, (byte) 0);
+            }
+            entries[i] = null;
+        }
+        size = 0;
+    }
+
+    /**
+     * Find the entry for the transaction data or create a new one, which is then the most
+     * recently used entry.
+     */
+    private Entry lookup(byte[] rawHHDuc) {
+        for (int i = 0; i < size; i++) {
+            if (Arrays.equals(entries[i].rawHHDuc, rawHHDuc)) {
+                moveToFront(i);
+                return entries[0];
+            }
+        }
+
+        // Evict the least recently used entry, if the cache is full
+        if (size < entries.length) {
+            size++;
+        }
+        Entry entry = new Entry(rawHHDuc.clone());
+        System.arraycopy(entries, 0, entries, 1, size - 1);
+        entries[0] = entry;
+        return entry;
+    }
+
+    private void moveToFront(int index) {
+        Entry entry = entries[index];
+        System.arraycopy(entries, 0, entries, 1, index);
+        entries[0] = entry;
+    }
+
+    /**
+     * Compute the fingerprint of a BQR container without unscrambling it.
+     *
+     * @param bqr
+     *      Scrambled BQR container.
+     * @return
+     *      CRC-16 checksum and length of the container, or {@link #NO_FINGERPRINT} if the
+     *      container is too short.
+     */
+    static int fingerprint(byte[] bqr) {
+        final int length = bqr.length;
+        if (length < 4) {
+            return NO_FINGERPRINT;
+        }
+
+        // The checksum is scrambled with the prefix like the content, but the prefix itself
+        // is not scrambled
+        int checksum = ((bqr[length - 2] ^ bqr[length & 1]) & 0xff) << 8
+                | ((bqr[length - 1] ^ bqr[(length - 1) & 1]) & 0xff);
+
+        // The length of a QR code's content is limited to 2953 bytes
+        return length << 16 | checksum;
+    }
+
+    /**
+     * Compare an unscrambled container with a scrambled one, without scrambling a copy.
+     */
+    private static boolean matchesScrambled(byte[] unscrambled, byte[] scrambled) {
+        if (unscrambled == null || unscrambled.length != scrambled.length) {
+            return false;
+        }
+
+        if (unscrambled[0] != scrambled[0] || unscrambled[1] != scrambled[1]) {
+            return false;
+        }
+
+        for (int i = 2; i < scrambled.length; i++) {
+            if ((byte) (unscrambled[i] ^ unscrambled[i & 1]) != scrambled[i]) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+}
@@ -0,0 +1,255 @@
+/*
+ * Copyright (c) 2019 EFDIS AG Bankensoftware, Freising <info@efdis.de>.
+ *
+ * This file is part of the activeTAN app for Android.
+ *
+ * The activeTAN app is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * The activeTAN app is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with the activeTAN app.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package de.efdis.tangenerator.activetan;
+
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CoderResult;
+import java.util.Arrays;
+
+public class DKCharset extends Charset {
+
+    public static final DKCharset INSTANCE = new DKCharset();
+
+    public DKCharset() {
+        super("DK", new String[0]);
+    }
+
+    @Override
+    public boolean contains(Charset cs) {
+        return false;
+    }
+
+    @Override
+    public CharsetDecoder newDecoder() {
+        return new Decoder(this);
+    }
+
+    @Override
+    public CharsetEncoder newEncoder() {
+        return new Encoder(this);
+    }
+
+    /** Replacement for unsupported characters and bytes in the bulk methods */
+    private static final char REPLACEMENT = '?';
+
+    /** Character for each byte, <code>0</code> if the byte value is not supported */
+    private static final char[] DECODE_TABLE = new char[256];
+
+    /**
+     * Encoded byte for each character U+0000 to U+00FF, <code>-1</code> if the character is not
+     * supported. The only other supported character is the euro sign.
+     */
+    private static final byte[] ENCODE_TABLE = new byte[256];
+
+    /** The only supported character beyond U+00FF */
+    private static final char EURO_SIGN = '€';
+    private static final byte EURO_SIGN_ENCODED = 0x24;
+
+    static {
+        for (int b = 0x20; b < 0x7f; b++) {
+            DECODE_TABLE[b] = (char) b;
+        }
+        DECODE_TABLE[0x23] = '#';
+        DECODE_TABLE[0x24] = EURO_SIGN;
+        DECODE_TABLE[0x40] = '@';
+        DECODE_TABLE[0x5b] = 'Ä';
+        DECODE_TABLE[0x5c] = 'Ö';
+        DECODE_TABLE[0x5d] = 'Ü';
+        DECODE_TABLE[0x5e] = '£';
+        DECODE_TABLE[0x60] = '`';
+        DECODE_TABLE[0x7b] = 'ä';
+        DECODE_TABLE[0x7c] = 'ö';
+        DECODE_TABLE[0x7d] = 'ü';
+        DECODE_TABLE[0x7e] = 'ß';
+
+        Arrays.fill(ENCODE_TABLE, (byte) -1);
+        // Plain ASCII is passed through, even if the code is used for another character
+        for (int c = 0x20; c <= 0x7f; c++) {
+            ENCODE_TABLE[c] = (byte) c;
+        }
+        for (int b = 0; b < DECODE_TABLE.length; b++) {
+            char c = DECODE_TABLE[b];
+            if (c != 0 && c < ENCODE_TABLE.length) {
+                ENCODE_TABLE[c] = (byte) b;
+            }
+        }
+    }
+
+    /**
+     * Encode a single character.
+     *
+     * @return
+     *      The encoded byte value or <code>-1</code>, if the character is not supported.
+     */
+    static int encode(char c) {
+        if (c < ENCODE_TABLE.length) {
+            return ENCODE_TABLE[c];
+        } else if (c == EURO_SIGN) {
+            return EURO_SIGN_ENCODED;
+        } else {
+            return -1;
+        }
+    }
+
+    /**
+     * Normalize an encoded byte, as if it was decoded and encoded again.
+     *
+     * @return
+     *      The encoded byte value, which is the encoded <code>'?'</code> for unsupported bytes.
+     */
+    static int normalize(byte b) {
+        char c = DECODE_TABLE[b & 0xff];
+        return encode(c == 0 ? REPLACEMENT : c);
+    }
+
+    /**
+     * Encode text without the overhead of a {@link CharsetEncoder}. Unsupported characters are
+     * replaced with <code>'?'</code>.
+     *
+     * @param text
+     *      Characters to encode
+     * @param dest
+     *      Buffer for the encoded text, each character is encoded as a single byte.
+     * @param off
+     *      Position of the first byte in <code>dest</code>
+     * @return
+     *      Number of bytes written, which is the length of <code>text</code>
+     */
+    public static int encode(CharSequence text, byte[] dest, int off) {
+        return encode(text, 0, text.length(), dest, off);
+    }
+
+    /**
+     * Encode text into a new array.
+     *
+     * @see #encode(CharSequence, byte[], int)
+     */
+    static byte[] toBytes(CharSequence text) {
+        byte[] result = new byte[text.length()];
+        encode(text, result, 0);
+        return result;
+    }
+
+    /**
+     * Encode the characters <code>start</code> to <code>end - 1</code> of a text.
+     *
+     * @see #encode(CharSequence, byte[], int)
+     */
+    public static int encode(CharSequence text, int start, int end, byte[] dest, int off) {
+        final int length = end - start;
+        if (start < 0 || start > end || end > text.length()
+                || off < 0 || off > dest.length - length) {
+            throw new IndexOutOfBoundsException();
+        }
+
+        for (int i = 0; i < length; i++) {
+            int b = encode(text.charAt(start + i));
+            dest[off + i] = (byte) (b < 0 ? REPLACEMENT : b);
+        }
+
+        return length;
+    }
+
+    /**
+     * Decode text without the overhead of a {@link CharsetDecoder}. Unsupported bytes are
+     * replaced with <code>'?'</code>.
+     *
+     * @param data
+     *      Buffer containing the encoded text
+     * @param off
+     *      Position of the first byte in <code>data</code>
+     * @param len
+     *      Number of bytes to decode
+     */
+    public static String decode(byte[] data, int off, int len) {
+        if (off < 0 || len < 0 || off > data.length - len) {
+            throw new ArrayIndexOutOfBoundsException();
+        }
+
+        char[] text = new char[len];
+        for (int i = 0; i < len; i++) {
+            char c = DECODE_TABLE[data[off + i] & 0xff];
+            text[i] = c == 0 ? REPLACEMENT : c;
+        }
+
+        return new String(text);
+    }
+
+    public static class Encoder extends CharsetEncoder {
+        public Encoder(Charset charset) {
+            super(charset, 1.f, 1.f, new byte[]{'?'});
+        }
+
+        @Override
+        public boolean isLegalReplacement(byte[] repl) {
+            for (byte b : repl) {
+                if ((b & 0xff) < 0x20 || 0x7f <= (b&0xff)) {
+                    return false;
+                }
+            }
+            return repl.length != 0;
+        }
+
+        @Override
+        protected CoderResult encodeLoop(CharBuffer in, ByteBuffer out) {
+            while (in.hasRemaining()) {
+                if (!out.hasRemaining()) {
+                    return CoderResult.OVERFLOW;
+                }
+
+                int b = DKCharset.encode(in.get());
+                if (b < 0) {
+                    out.put(replacement());
+                } else {
+                    out.put((byte) b);
+                }
+            }
+            return CoderResult.UNDERFLOW;
+        }
+    }
+
+    public static class Decoder extends CharsetDecoder {
+        public Decoder(Charset charset) {
+            super(charset, 1.f, 1.f);
+            replaceWith("?");
+        }
+
+        @Override
+        protected CoderResult decodeLoop(ByteBuffer in, CharBuffer out) {
+            while (in.hasRemaining()) {
+                if (!out.hasRemaining()) {
+                    return CoderResult.OVERFLOW;
+                }
+
+                char c = DECODE_TABLE[in.get() & 0xff];
+                if (c != 0) {
+                    out.put(c);
+                } else {
+                    out.put(replacement());
+                }
+            }
+            return CoderResult.UNDERFLOW;
+        }
+    }
+}
@@ -19,8 +19,7 @@
 
 package de.efdis.tangenerator.activetan;
 
-import java.util.Map;
-import java.util.TreeMap;
+import java.util.Arrays;
 
 public enum DataElementType {
     ADDRESS(10, "Adresse:",
@@ -129,6 +128,12 @@ public enum DataElementType {
     private final int integerDigits;
     private final int fractionDigits;
 
+    /** Label encoded with the {@link DKCharset}, must not be modified */
+    private final byte[] encodedVisDataLine1;
+
+    /** Numbered labels for each part of the longest possible value, must not be modified */
+    private final byte[][] encodedNumberedVisDataLines1;
+
     DataElementType(int id, String visDataLine1, Format format, int maxLength) {
         this(id, visDataLine1, format, maxLength, 0);
     }
@@ -159,6 +164,15 @@ public enum DataElementType {
             }
             this.integerDigits = 0;
         }
+
+        // The labels are encoded after the arguments have been validated
+        this.encodedVisDataLine1 = DKCharset.toBytes(visDataLine1);
+        int maxParts = (maxLength + VisDataBuffer.MAX_DATABLOCK_LENGTH - 1)
+                / VisDataBuffer.MAX_DATABLOCK_LENGTH;
+        this.encodedNumberedVisDataLines1 = new byte[maxParts][];
+        for (int part = 1; part <= maxParts; part++) {
+            encodedNumberedVisDataLines1[part - 1] = encodeNumberedLabel(visDataLine1, part);
+        }
     }
 
     public int getId() {
@@ -167,6 +181,37 @@ public enum DataElementType {
 
     public String getVisDataLine1() { return visDataLine1; }
 
+    /** {@link #getVisDataLine1()} encoded with the {@link DKCharset}, must not be modified */
+    byte[] getEncodedVisDataLine1() { return encodedVisDataLine1; }
+
+    /**
+     * Label for one part of a long value, which does not fit into a single data block. The label
+     * is truncated or padded with spaces and the number of the part is appended,
+     * e. g., <code>"Betrag:    1"</code>.
+     *
+     * @param part
+     *      Number of the part, starting with 1.
+     * @return
+     *      Label encoded with the {@link DKCharset}, must not be modified
+     */
+    byte[] getEncodedNumberedVisDataLine1(int part) {
+        if (part <= encodedNumberedVisDataLines1.length) {
+            return encodedNumberedVisDataLines1[part - 1];
+        }
+        return encodeNumberedLabel(visDataLine1, part);
+    }
+
+    private static byte[] encodeNumberedLabel(String label, int part) {
+        String number = Integer.toString(part);
+        int labelLength = Math.min(label.length(), VisDataBuffer.MAX_DATABLOCK_LENGTH - 1);
+
+        byte[] result = new byte[VisDataBuffer.MAX_DATABLOCK_LENGTH - 1 + number.length()];
+        Arrays.fill(result, (byte) ' ');
+        DKCharset.encode(label, 0, labelLength, result, 0);
+        DKCharset.encode(number, result, VisDataBuffer.MAX_DATABLOCK_LENGTH - 1);
+        return result;
+    }
+
     public Format getFormat() {
         return format;
     }
@@ -183,16 +228,19 @@ public enum DataElementType {
         return fractionDigits;
     }
 
-    private static final Map<Integer, DataElementType> byId;
+    /** Lookup table, all IDs are below 100 */
+    private static final DataElementType[] byId = new DataElementType[100];
     static {
-        byId = new TreeMap<>();
         for (DataElementType det : DataElementType.values()) {
-            byId.put(det.getId(), det);
+            byId[det.getId()] = det;
         }
     }
 
     public static DataElementType forId(int id) {
-        return byId.get(id);
+        if (id < 0 || id >= byId.length) {
+            return null;
+        }
+        return byId[id];
     }
 
 }
@@ -0,0 +1,233 @@
+/*
+ * Copyright (c) 2019 EFDIS AG Bankensoftware, Freising <info@efdis.de>.
+ *
+ * This file is part of the activeTAN app for Android.
+ *
+ * The activeTAN app is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * The activeTAN app is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with the activeTAN app.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package de.efdis.tangenerator.activetan;
+
+import java.nio.ByteBuffer;
+
+public enum FieldEncoding {
+    BCD, ASCII;
+
+    /** Marker in {@link #BCD_VALUE} for a byte with an invalid first half-byte */
+    private static final short ILLEGAL_FIRST_NIBBLE = -1;
+
+    /** Marker in {@link #BCD_VALUE} for a byte with an invalid second half-byte */
+    private static final short ILLEGAL_SECOND_NIBBLE = -2;
+
+    /** Offset in {@link #BCD_VALUE} for a single digit followed by the filler 0xf */
+    private static final short SINGLE_DIGIT = 100;
+
+    /**
+     * Decoded value of each BCD byte: 0..99 for two digits, {@link #SINGLE_DIGIT} + 0..9 for a
+     * digit with filler, or a negative marker for illegal values.
+     */
+    private static final short[] BCD_VALUE = new short[256];
+
+    /** BCD byte for each two digit number 0..99 */
+    private static final byte[] BCD_BYTE = new byte[100];
+
+    static {
+        for (int b = 0; b < BCD_VALUE.length; b++) {
+            int firstNibble = (b & 0xf0) >> 4;
+            int secondNibble = b & 0x0f;
+
+            if (firstNibble > 9) {
+                BCD_VALUE[b] = ILLEGAL_FIRST_NIBBLE;
+            } else if (secondNibble == 0xf) {
+                BCD_VALUE[b] = (short) (SINGLE_DIGIT + firstNibble);
+            } else if (secondNibble > 9) {
+                BCD_VALUE[b] = ILLEGAL_SECOND_NIBBLE;
+            } else {
+                BCD_VALUE[b] = (short) (firstNibble * 10 + secondNibble);
+            }
+        }
+
+        for (int value = 0; value < BCD_BYTE.length; value++) {
+            BCD_BYTE[value] = (byte) (((value / 10) << 4) | (value % 10));
+        }
+    }
+
+    public static long bcdDecode(byte[] data) throws NumberFormatException {
+        return bcdDecode(data, 0, data.length);
+    }
+
+    /**
+     * Decode a BCD coded number, which may end with the filler 0xf in the last half-byte.
+     *
+     * @param data
+     *      Buffer containing the BCD coded number
+     * @param off
+     *      Position of the first byte of the number in <code>data</code>
+     * @param len
+     *      Number of bytes to decode
+     * @throws NumberFormatException
+     *      If the data contains illegal half-bytes
+     */
+    public static long bcdDecode(byte[] data, int off, int len) throws NumberFormatException {
+        long result = 0;
+
+        final int last = off + len - 1;
+        for (int i = off; i <= last; i++) {
+            int value = BCD_VALUE[data[i] & 0xff];
+
+            if (value < SINGLE_DIGIT && value >= 0) {
+                result = result * 100 + value;
+            } else if (value >= SINGLE_DIGIT && i == last) {
+                // end of number
+                result = result * 10 + (value - SINGLE_DIGIT);
+            } else if (value == ILLEGAL_FIRST_NIBBLE) {
+                throw new NumberFormatException(
+                        "Illegal value in first half-byte of BCD coded number");
+            } else {
+                throw new NumberFormatException(
+                        "Illegal value in second half-byte of BCD coded number");
+            }
+        }
+
+        return result;
+    }
+
+    /**
+     * Check a BCD coded number without decoding it.
+     *
+     * @return
+     *      <code>true</code>, if {@link #bcdDecode(byte[], int, int)} would not throw an exception.
+     */
+    static boolean isBcd(byte[] data, int off, int len) {
+        final int last = off + len - 1;
+        for (int i = off; i <= last; i++) {
+            int value = BCD_VALUE[data[i] & 0xff];
+
+            if (value < 0 || (value >= SINGLE_DIGIT && i != last)) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    /**
+     * Number of bytes needed to BCD encode the given number of digits.
+     */
+    public static int bcdLength(int digits) {
+        return (digits + 1) / 2;
+    }
+
+    public static byte[] bcdEncode(String number) {
+        byte[] result = new byte[bcdLength(number.length())];
+        bcdEncode(number, result, 0);
+        return result;
+    }
+
+    /**
+     * Encode decimal digits into a buffer. An odd number of digits is completed with the
+     * filler 0xf.
+     *
+     * @param number
+     *      Decimal digits
+     * @param dest
+     *      Buffer for the encoded number
+     * @param off
+     *      Position of the first byte in <code>dest</code>
+     * @return
+     *      Number of bytes written
+     * @throws NumberFormatException
+     *      If <code>number</code> contains other characters than decimal digits
+     */
+    public static int bcdEncode(CharSequence number, byte[] dest, int off) throws NumberFormatException {
+        final int length = number.length();
+        int pos = off;
+
+        int i = 0;
+        for (; i + 1 < length; i += 2) {
+            dest[pos++] = (byte) ((digit(number.charAt(i)) << 4) | digit(number.charAt(i + 1)));
+        }
+        if (i < length) {
+            dest[pos++] = (byte) ((digit(number.charAt(i)) << 4) | 0xf);
+        }
+
+        return pos - off;
+    }
+
+    /**
+     * Encode decimal digits at the buffer's position, which is advanced accordingly.
+     *
+     * @see #bcdEncode(CharSequence, byte[], int)
+     */
+    public static void bcdEncode(CharSequence number, ByteBuffer dest) throws NumberFormatException {
+        final int length = number.length();
+
+        int i = 0;
+        for (; i + 1 < length; i += 2) {
+            dest.put((byte) ((digit(number.charAt(i)) << 4) | digit(number.charAt(i + 1))));
+        }
+        if (i < length) {
+            dest.put((byte) ((digit(number.charAt(i)) << 4) | 0xf));
+        }
+    }
+
+    /**
+     * Encode a non-negative number with a fixed number of digits, including leading zeros,
+     * into a buffer. An odd number of digits is completed with the filler 0xf.
+     *
+     * @param number
+     *      Non-negative number, e. g., a start code
+     * @param digits
+     *      Number of decimal digits to encode
+     * @param dest
+     *      Buffer for the encoded number
+     * @param off
+     *      Position of the first byte in <code>dest</code>
+     * @return
+     *      Number of bytes written
+     * @throws IllegalArgumentException
+     *      If the number is negative or has too many digits
+     */
+    public static int bcdEncode(long number, int digits, byte[] dest, int off) {
+        if (number < 0) {
+            throw new IllegalArgumentException("Negative numbers cannot be BCD coded");
+        }
+
+        final int length = bcdLength(digits);
+        int pos = off + length - 1;
+
+        if (digits % 2 != 0) {
+            dest[pos--] = (byte) (((int) (number % 10) << 4) | 0xf);
+            number /= 10;
+        }
+        for (; pos >= off; pos--) {
+            dest[pos] = BCD_BYTE[(int) (number % 100)];
+            number /= 100;
+        }
+
+        if (number != 0) {
+            throw new IllegalArgumentException("Number exceeds " + digits + " digits");
+        }
+
+        return length;
+    }
+
+    private static int digit(char c) throws NumberFormatException {
+        int digit = c - '0';
+        if (digit < 0 || digit > 9) {
+            throw new NumberFormatException("Only decimal digits can be BCD coded");
+        }
+        return digit;
+    }
+}
@@ -0,0 +1,91 @@
+/*
+ * Copyright (c) 2026 EFDIS AG Bankensoftware, Freising <info@efdis.de>.
+ *
+ * This file is part of the activeTAN app for Android.
+ *
+ * The activeTAN app is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * The activeTAN app is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with the activeTAN app.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package de.efdis.tangenerator.activetan;
+
+/**
+ * Check byte of an HHDuc challenge, which combines a Luhn digit (high nibble) and an XOR
+ * checksum (low nibble).
+ * <p/>
+ * This computes the same value as a {@link LuhnChecksum} over control byte, start code and data
+ * elements together with a {@link XorChecksum} over the whole challenge, but in a single pass.
+ */
+final class HHDCheckByte {
+
+    /** Luhn sum of both nibbles of a byte, the low nibble is doubled */
+    private static final byte[] LUHN_SUM = createLuhnSumTable();
+
+    private int luhnSum;
+    private int xor;
+
+    private static byte[] createLuhnSumTable() {
+        byte[] table = new byte[256];
+        for (int b = 0; b < table.length; b++) {
+            int firstNibble = (b & 0xf0) >> 4;
+            int secondNibble = (b & 0x0f) * 2;
+            if (secondNibble > 9) {
+                secondNibble = (secondNibble / 10) + (secondNibble % 10);
+            }
+            table[b] = (byte) (firstNibble + secondNibble);
+        }
+        return table;
+    }
+
+    void reset() {
+        luhnSum = 0;
+        xor = 0;
+    }
+
+    /**
+     * Length and format bytes (LC, LS, LDE), which are only protected by the XOR checksum.
+     */
+    void updateStructure(int b) {
+        xor ^= b & 0xff;
+    }
+
+    /**
+     * Control byte, start code or data element, which are protected by both checksums.
+     */
+    void updateData(int b) {
+        luhnSum += LUHN_SUM[b & 0xff];
+        xor ^= b & 0xff;
+    }
+
+    /**
+     * Control byte, start code or data element, which are protected by both checksums.
+     */
+    void updateData(byte[] b, int off, int len) {
+        int sum = luhnSum;
+        int x = xor;
+        for (int idx = off, end = off + len; idx < end; idx++) {
+            int value = b[idx] & 0xff;
+            sum += LUHN_SUM[value];
+            x ^= value;
+        }
+        luhnSum = sum;
+        xor = x;
+    }
+
+    int getValue() {
+        int luhnDigit = (10 - (luhnSum % 10)) % 10;
+        int xorNibble = ((xor & 0xf0) >> 4) ^ (xor & 0x0f);
+        return (luhnDigit << 4) | xorNibble;
+    }
+
+}
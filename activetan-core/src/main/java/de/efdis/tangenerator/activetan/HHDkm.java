@@ -19,10 +19,8 @@
 
 package de.efdis.tangenerator.activetan;
 
-import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
-
-import de.efdis.tangenerator.persistence.keystore.BankingKeyComponents;
+import java.util.Arrays;
 
 /**
  * Hand held device, key material
@@ -66,14 +64,30 @@ public class HHDkm {
         this.deviceSerialNumber = deviceSerialNumber;
     }
 
+    /**
+     * @see #tryParse(byte[])
+     */
     public static HHDkm parse(byte[] rawBytes) throws UnsupportedDataFormatException {
+        ParseResult<HHDkm, ParseError> result = tryParse(rawBytes);
+        if (!result.isSuccess()) {
+            throw new UnsupportedDataFormatException(result.getError());
+        }
+        return result.getValue();
+    }
+
+    /**
+     * Parse key material without throwing an exception for invalid data.
+     *
+     * @see #parse(byte[])
+     */
+    public static ParseResult<HHDkm, ParseError> tryParse(byte[] rawBytes) {
         HHDkm result = new HHDkm();
-        ByteArrayInputStream bais = new ByteArrayInputStream(rawBytes);
+        int pos = 0;
 
-        int prefix = bais.read();
-        if (prefix < 0) {
-            throw new UnsupportedDataFormatException("missing prefix");
+        if (pos == rawBytes.length) {
+            return ParseResult.failure(ParseError.MISSING_PREFIX);
         }
+        int prefix = rawBytes[pos++] & 0xff;
 
         for (KeyMaterialType type : KeyMaterialType.values()) {
             if (prefix == type.getHHDkmPrefix()) {
@@ -82,40 +96,39 @@ public class HHDkm {
             }
         }
         if (result.type == null) {
-            throw new UnsupportedDataFormatException("unsupported prefix");
+            return ParseResult.failure(ParseError.UNSUPPORTED_PREFIX);
         }
 
-        result.aesKeyComponent = new byte[BankingKeyComponents.BANKING_KEY_LENGTH];
-        if (bais.read(result.aesKeyComponent, 0, result.aesKeyComponent.length)
-                != BankingKeyComponents.BANKING_KEY_LENGTH) {
-            throw new UnsupportedDataFormatException("incomplete key data");
+        if (rawBytes.length - pos < BankingKeyProvider.BANKING_KEY_LENGTH) {
+            return ParseResult.failure(ParseError.INCOMPLETE_KEY_DATA);
         }
+        result.aesKeyComponent = Arrays.copyOfRange(rawBytes, pos,
+                pos + BankingKeyProvider.BANKING_KEY_LENGTH);
+        pos += BankingKeyProvider.BANKING_KEY_LENGTH;
 
         if (result.type == KeyMaterialType.PORTAL) {
-            byte[] serialNumber = new byte[12];
-            if (bais.read(serialNumber, 0, serialNumber.length) != serialNumber.length) {
-                throw new UnsupportedDataFormatException("incomplete serial number");
+            final int serialNumberLength = 12;
+            if (rawBytes.length - pos < serialNumberLength) {
+                return ParseResult.failure(ParseError.INCOMPLETE_SERIAL_NUMBER);
             }
-            result.deviceSerialNumber = new String(serialNumber, DKCharset.INSTANCE);
+            result.deviceSerialNumber = DKCharset.decode(rawBytes, pos, serialNumberLength);
+            pos += serialNumberLength;
         }
 
-        int letterNumber = bais.read();
-        if (letterNumber < 0) {
-            throw new UnsupportedDataFormatException("missing letter number");
+        if (pos == rawBytes.length) {
+            return ParseResult.failure(ParseError.MISSING_LETTER_NUMBER);
         }
 
-        try {
-            result.letterNumber = (int) FieldEncoding.bcdDecode(new byte[]{(byte) letterNumber});
-        } catch (NumberFormatException e) {
-            throw new UnsupportedDataFormatException("illegal letter number format");
+        if (!FieldEncoding.isBcd(rawBytes, pos, 1)) {
+            return ParseResult.failure(ParseError.ILLEGAL_LETTER_NUMBER);
         }
+        result.letterNumber = (int) FieldEncoding.bcdDecode(rawBytes, pos, 1);
 
         /* The remaining data contains text instructions for other hand held devices,
          * which can be ignored.
          */
 
-        return result;
-
+        return ParseResult.success(result);
     }
 
     public byte[] getBytes() {
@@ -126,7 +139,8 @@ public class HHDkm {
         baos.write(aesKeyComponent, 0, aesKeyComponent.length);
 
         if (type == KeyMaterialType.PORTAL) {
-            byte[] serialNumber = deviceSerialNumber.getBytes(DKCharset.INSTANCE);
+            byte[] serialNumber = new byte[deviceSerialNumber.length()];
+            DKCharset.encode(deviceSerialNumber, serialNumber, 0);
             baos.write(serialNumber, 0, serialNumber.length);
         }
 
@@ -136,9 +150,46 @@ public class HHDkm {
         return baos.toByteArray();
     }
 
+    /** Reasons for rejecting key material */
+    public enum ParseError {
+        MISSING_PREFIX("missing prefix"),
+        UNSUPPORTED_PREFIX("unsupported prefix"),
+        INCOMPLETE_KEY_DATA("incomplete key data"),
+        INCOMPLETE_SERIAL_NUMBER("incomplete serial number"),
+        MISSING_LETTER_NUMBER("missing letter number"),
+        ILLEGAL_LETTER_NUMBER("illegal letter number format"),
+        ;
+
+        private final String message;
+
+        ParseError(String message) {
+            this.message = message;
+        }
+
+        public String getMessage() {
+            return message;
+        }
+    }
+
     public static class UnsupportedDataFormatException extends Exception {
+        private final ParseError error;
+
         public UnsupportedDataFormatException(String message) {
             super(message);
+            this.error = null;
+        }
+
+        public UnsupportedDataFormatException(ParseError error) {
+            super(error.getMessage());
+            this.error = error;
+        }
+
+        /**
+         * @return
+         *      <code>null</code>, if the reason is only described by the message.
+         */
+        public ParseError getError() {
+            return error;
         }
     }
 
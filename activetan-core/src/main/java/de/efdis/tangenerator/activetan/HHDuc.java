@@ -0,0 +1,406 @@
+/*
+ * Copyright (c) 2019 EFDIS AG Bankensoftware, Freising <info@efdis.de>.
+ *
+ * This file is part of the activeTAN app for Android.
+ *
+ * The activeTAN app is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * The activeTAN app is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with the activeTAN app.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package de.efdis.tangenerator.activetan;
+
+import java.io.ByteArrayOutputStream;
+import java.math.BigDecimal;
+import java.text.DecimalFormat;
+import java.text.DecimalFormatSymbols;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+public class HHDuc {
+
+    /**
+     * Legacy start codes have a maximum of 8 digits.
+     */
+    private static final int MAX_SHORT_START_CODE_DIGITS = 8;
+
+    /**
+     * Start codes with visualization class (prefix 1 and 2) have a maximum of 12 digits.
+     */
+    private static final int MAX_START_CODE_DIGITS = 12;
+
+    /**
+     * Start code prefix for TAN generation and display of the ATC
+     */
+    private static final int DISPLAY_ATC_START_CODE_PREFIX = 8;
+
+    private int unpredictableNumber;
+    private final VisualisationClass visualisationClass;
+
+    /** Ordered data element types, without duplicates */
+    private final DataElementType[] dataElementTypes;
+
+    /** Values of the data elements, same order as {@link #dataElementTypes} */
+    private final String[] dataElementValues;
+
+    /** Read-only view of {@link #dataElementTypes} */
+    private final List<DataElementType> dataElementTypeList;
+
+    /**
+     * Cache for {@link #getEncodedStartCode()}, <code>null</code> if it must be computed.
+     * The start code depends on the unpredictable number and the data element types, but not on
+     * the values of the data elements.
+     */
+    private byte[] encodedStartCode;
+
+    /**
+     * Create a new, empty HHDuc object without visualization class.
+     */
+    public HHDuc() {
+        this(null, new DataElementType[0]);
+    }
+
+    /**
+     * Create a new, empty HHDuc object for the specified visualisation class with the default
+     * data elements of the visualisation class.
+     */
+    public HHDuc(VisualisationClass visualisationClass) {
+        this(visualisationClass, visualisationClass.getDataElements().toArray(new DataElementType[0]));
+    }
+
+    /**
+     * Create a new, empty HHDuc object for the specified visualisation class with
+     * custom data elements.
+     */
+    public HHDuc(VisualisationClass visualisationClass, DataElementType... selectedElements) {
+        this.visualisationClass = visualisationClass;
+        this.dataElementTypes = distinct(selectedElements, selectedElements.length);
+        this.dataElementValues = new String[dataElementTypes.length];
+        Arrays.fill(dataElementValues, "");
+        this.dataElementTypeList = Collections.unmodifiableList(Arrays.asList(dataElementTypes));
+    }
+
+    /**
+     * @return
+     *      The first <code>count</code> types without duplicates, in a new array.
+     */
+    static DataElementType[] distinct(DataElementType[] selectedElements, int count) {
+        DataElementType[] types = new DataElementType[count];
+        int distinctCount = 0;
+        for (int i = 0; i < count; i++) {
+            if (indexOf(types, distinctCount, selectedElements[i]) < 0) {
+                types[distinctCount++] = selectedElements[i];
+            }
+        }
+
+        return distinctCount == count ? types : Arrays.copyOf(types, distinctCount);
+    }
+
+    private static int indexOf(DataElementType[] types, int count, DataElementType type) {
+        for (int i = 0; i < count; i++) {
+            if (types[i] == type) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    public VisualisationClass getVisualisationClass() {
+        return visualisationClass;
+    }
+
+    public String getDataElement(DataElementType type) {
+        int index = indexOf(dataElementTypes, dataElementTypes.length, type);
+        return index < 0 ? null : dataElementValues[index];
+    }
+
+    public void setDataElement(DataElementType type, String value) {
+        int index = indexOf(dataElementTypes, dataElementTypes.length, type);
+        if (index < 0) {
+            throw new NoSuchElementException(type + " is not available for this HHDuc");
+        }
+
+        dataElementValues[index] = truncate(type, value);
+    }
+
+    /** Shorten values, which exceed the maximum length of the data element */
+    static String truncate(DataElementType type, String value) {
+        if (type.getMaxLength() < value.length()) {
+            String ellipsis = "...";
+            value = value.substring(0, type.getMaxLength() - ellipsis.length())
+                    + ellipsis;
+        }
+        return value;
+    }
+
+    public void setDataElement(DataElementType type, long value) {
+        if (!DataElementType.Format.NUMERIC.equals(type.getFormat())) {
+            throw new IllegalArgumentException(type + " is not numeric");
+        }
+
+        setDataElement(type, Long.toString(value));
+    }
+
+    public void setDataElement(DataElementType type, BigDecimal value) {
+        if (!DataElementType.Format.NUMERIC.equals(type.getFormat())) {
+            throw new IllegalArgumentException(type + " is not numeric");
+        }
+
+        DecimalFormat format = new DecimalFormat();
+        format.setMaximumFractionDigits(type.getFractionDigits());
+        format.setMaximumIntegerDigits(type.getIntegerDigits());
+        DecimalFormatSymbols symbols = format.getDecimalFormatSymbols();
+        symbols.setDecimalSeparator(',');
+        format.setDecimalFormatSymbols(symbols);
+        format.setMinimumFractionDigits(value.scale());
+        format.setGroupingUsed(false);
+
+        setDataElement(type, format.format(value));
+    }
+
+    /**
+     * @return
+     *      Read-only list of the data element types, in the order of the challenge.
+     */
+    public List<DataElementType> getDataElementTypes() {
+        return dataElementTypeList;
+    }
+
+    public void setUnpredictableNumber(int unpredictableNumber) {
+        if (unpredictableNumber < 0) {
+            throw new IllegalArgumentException("Random number cannot be negative");
+        }
+        this.unpredictableNumber = unpredictableNumber;
+        this.encodedStartCode = null;
+    }
+
+    public byte[] getStartCode() {
+        return getEncodedStartCode().clone();
+    }
+
+    /**
+     * BCD encoded start code, which is computed on first use.
+     *
+     * @return
+     *      Shared array, which must not be modified.
+     */
+    byte[] getEncodedStartCode() {
+        if (encodedStartCode == null) {
+            encodedStartCode = encodeStartCode(
+                    visualisationClass, dataElementTypeList, unpredictableNumber);
+        }
+        return encodedStartCode;
+    }
+
+    static byte[] encodeStartCode(VisualisationClass visualisationClass, List<DataElementType> dataElementTypes, int unpredictableNumber) {
+        long prefix;
+        int prefixDigits;
+        int maxStartCodeDigits;
+
+        if (visualisationClass == null) {
+            maxStartCodeDigits = MAX_SHORT_START_CODE_DIGITS;
+
+            // Special case:
+            // The only supported case for HHDuc w/o visualisation class is start code '08...'
+            // for static TAN computation with display of the ATC.
+            prefix = DISPLAY_ATC_START_CODE_PREFIX;
+            prefixDigits = 2;
+        } else {
+            maxStartCodeDigits = MAX_START_CODE_DIGITS;
+
+            if (visualisationClass.getDataElements().equals(dataElementTypes)) {
+                prefix = 100 + visualisationClass.getId();
+                prefixDigits = 3;
+            } else {
+                prefix = 200 + visualisationClass.getId();
+                prefixDigits = 3;
+
+                for (DataElementType dataElementType : dataElementTypes) {
+                    prefix = prefix * 100 + dataElementType.getId();
+                    prefixDigits += 2;
+                }
+                if (dataElementTypes.size() < 3) {
+                    prefix = prefix * 10;
+                    prefixDigits++;
+                }
+            }
+        }
+
+        if (prefixDigits > maxStartCodeDigits) {
+            throw new IllegalStateException("Too many data elements for the start code");
+        }
+
+        // The unpredictable number fills the remaining digits
+        long remainder = 1;
+        for (int i = prefixDigits; i < maxStartCodeDigits; i++) {
+            remainder *= 10;
+        }
+        long startCode = prefix * remainder + unpredictableNumber % remainder;
+
+        byte[] startCodeEncoded = new byte[FieldEncoding.bcdLength(maxStartCodeDigits)];
+        FieldEncoding.bcdEncode(startCode, maxStartCodeDigits, startCodeEncoded, 0);
+        return startCodeEncoded;
+    }
+
+    /** Shall the ATC be displayed together with the generated TAN? */
+    public boolean isDisplayAtc() {
+        // Only start codes without visualisation class have the prefix '08'
+        return visualisationClass == null;
+    }
+
+    /**
+     * Parse a challenge and decode all data elements.
+     *
+     * @see HHDucView#parse(byte[])
+     * @see #tryParse(byte[])
+     */
+    public static HHDuc parse(byte[] rawBytes) throws UnsupportedDataFormatException {
+        return HHDucView.parse(rawBytes).toHHDuc();
+    }
+
+    /**
+     * Parse a challenge without throwing an exception for invalid data.
+     *
+     * @see #parse(byte[])
+     */
+    public static ParseResult<HHDuc, ParseError> tryParse(byte[] rawBytes) {
+        ParseResult<HHDucView, ParseError> result = HHDucView.tryParse(rawBytes);
+        if (!result.isSuccess()) {
+            return ParseResult.failure(result.getError());
+        }
+        return ParseResult.success(result.getValue().toHHDuc());
+    }
+
+    public byte[] getBytes() {
+        ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        HHDCheckByte checkByte = new HHDCheckByte();
+
+        // LC, will de defined later
+        baos.write(0);
+
+        // Start code
+        {
+            byte[] startCodeEncoded = getEncodedStartCode();
+
+            // LS, with control byte, BCD encoding
+            baos.write(0x80 | startCodeEncoded.length);
+            checkByte.updateStructure(0x80 | startCodeEncoded.length);
+
+            // Control byte
+            baos.write(HHDucView.HHD_CONTROL_BYTE);
+            checkByte.updateData(HHDucView.HHD_CONTROL_BYTE);
+
+            // Start code
+            baos.write(startCodeEncoded, 0, startCodeEncoded.length);
+            checkByte.updateData(startCodeEncoded, 0, startCodeEncoded.length);
+        }
+
+        for (int i = 0; i < dataElementTypes.length; i++) {
+            DataElementType type = dataElementTypes[i];
+            String value = dataElementValues[i];
+
+            byte[] valueEncoded;
+            if (DataElementType.Format.NUMERIC.equals(type.getFormat())
+                    && type.getFractionDigits() == 0
+                    && !value.contains("-")) {
+                // non-negative integers can be BCD encoded
+                valueEncoded = FieldEncoding.bcdEncode(value);
+
+                // L(DEx), BCD encoding
+                baos.write(valueEncoded.length);
+                checkByte.updateStructure(valueEncoded.length);
+            } else {
+                valueEncoded = new byte[value.length()];
+                DKCharset.encode(value, valueEncoded, 0);
+
+                // L(DEx), ASCII encoding
+                baos.write(0x40 | valueEncoded.length);
+                checkByte.updateStructure(0x40 | valueEncoded.length);
+            }
+
+            baos.write(valueEncoded, 0, valueEncoded.length);
+            checkByte.updateData(valueEncoded, 0, valueEncoded.length);
+        }
+
+        // Check byte, will be computed later
+        baos.write(0);
+
+        byte[] challenge = baos.toByteArray();
+
+        // LC
+        challenge[0] = (byte) (baos.size() - 1);
+        checkByte.updateStructure(challenge[0]);
+
+        // Check byte
+        challenge[challenge.length - 1] = (byte) checkByte.getValue();
+
+        return challenge;
+    }
+
+    /** Reasons for rejecting a challenge */
+    public enum ParseError {
+        WRONG_LC("LC contains wrong value"),
+        MISSING_LS("LS is missing"),
+        MISSING_CONTROL_BYTE_FLAG("Control byte missing according to LS"),
+        MISSING_CONTROL("Control is missing"),
+        UNKNOWN_CONTROL("Control has unknown value"),
+        MISSING_START_CODE("Start code is missing"),
+        INCOMPLETE_DATA_ELEMENT("Data element is incomplete"),
+        DATA_ELEMENT_TOO_LONG("Data element exceeds the maximum length"),
+        MISSING_CHECK_BYTE("Check byte is missing"),
+        WRONG_CHECK_BYTE("Check byte is wrong"),
+        UNEXPECTED_DATA("Unexpected data after check byte"),
+        NON_NUMERIC_START_CODE("Start code is not numeric"),
+        ILLEGAL_START_CODE_FORMAT("Illegal start code format"),
+        UNSUPPORTED_START_CODE("Only start codes with length 12 and prefix 1 or 2 are supported"),
+        UNKNOWN_VISUALISATION_CLASS("Visualisation class unknown"),
+        UNKNOWN_DATA_ELEMENT("Start code contains an unknown data element ID"),
+        UNDECLARED_DATA_ELEMENT("More data elements provided than declared by the start code"),
+        NON_NUMERIC_BCD_DATA_ELEMENT("Only numeric data can be BCD coded"),
+        ILLEGAL_NUMERIC_DATA("Illegal numeric data"),
+        ;
+
+        private final String message;
+
+        ParseError(String message) {
+            this.message = message;
+        }
+
+        public String getMessage() {
+            return message;
+        }
+    }
+
+    public static class UnsupportedDataFormatException extends Exception {
+        private final ParseError error;
+
+        public UnsupportedDataFormatException(String message) {
+            super(message);
+            this.error = null;
+        }
+
+        public UnsupportedDataFormatException(ParseError error) {
+            super(error.getMessage());
+            this.error = error;
+        }
+
+        /**
+         * @return
+         *      <code>null</code>, if the reason is only described by the message.
+         */
+        public ParseError getError() {
+            return error;
+        }
+    }
+}
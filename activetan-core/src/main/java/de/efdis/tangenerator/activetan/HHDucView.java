@@ -0,0 +1,502 @@
+/*
+ * Copyright (c) 2026 EFDIS AG Bankensoftware, Freising <info@efdis.de>.
+ *
+ * This file is part of the activeTAN app for Android.
+ *
+ * The activeTAN app is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * The activeTAN app is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with the activeTAN app.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package de.efdis.tangenerator.activetan;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Read-only view of a HHDuc challenge, which refers to the raw bytes instead of copying and
+ * decoding the data elements.
+ * <p/>
+ * The challenge is validated like {@link HHDuc#parse(byte[])} in a single pass, which only
+ * records the positions of the data elements. Their values are decoded on request, so that a
+ * challenge can be validated and hashed with {@link VisDataBuffer#write(HHDucView)} without
+ * creating an object per data element. The raw bytes must not be modified while the view is
+ * in use.
+ */
+public final class HHDucView {
+
+    /** Maximum length of a data element in the challenge and of its value */
+    static final int MAX_DATA_ELEMENT_LENGTH = 36;
+
+    /** Maximum length of a BCD encoded data element in the challenge */
+    private static final int MAX_BCD_DATA_ELEMENT_LENGTH = 18;
+
+    /** In Germany only one value is allowed according to HHDuc version 1.4 */
+    static final int HHD_CONTROL_BYTE = 0x01;
+
+    private static final String ELLIPSIS = "...";
+
+    private final byte[] rawBytes;
+    private final VisualisationClass visualisationClass;
+    private final int unpredictableNumber;
+
+    /** Declared data element types, without duplicates */
+    private final DataElementType[] dataElementTypes;
+
+    /** Read-only view of {@link #dataElementTypes} */
+    private final List<DataElementType> dataElementTypeList;
+
+    /**
+     * Position of each data element's LDE in {@link #rawBytes}. There may be less data elements
+     * than declared, the values of the missing ones are empty.
+     */
+    private final int[] dataElementPositions;
+    private final int dataElementCount;
+
+    /**
+     * Computed in advance, so that the view is safely published with its final fields, when it is
+     * shared between threads, e. g., by the {@link ChallengeCache}
+     */
+    private final byte[] encodedStartCode;
+
+    private HHDucView(byte[] rawBytes, VisualisationClass visualisationClass,
+                      DataElementType[] dataElementTypes, int unpredictableNumber,
+                      int[] dataElementPositions, int dataElementCount) {
+        this.rawBytes = rawBytes;
+        this.visualisationClass = visualisationClass;
+        this.dataElementTypes = dataElementTypes;
+        this.dataElementTypeList = Collections.unmodifiableList(Arrays.asList(dataElementTypes));
+        this.unpredictableNumber = unpredictableNumber;
+        this.dataElementPositions = dataElementPositions;
+        this.dataElementCount = dataElementCount;
+        this.encodedStartCode = HHDuc.encodeStartCode(
+                visualisationClass, dataElementTypeList, unpredictableNumber);
+    }
+
+    /**
+     * Validate a challenge without copying it.
+     *
+     * @param rawBytes
+     *      Challenge, which is referenced by the view and must not be modified afterwards.
+     * @throws HHDuc.UnsupportedDataFormatException
+     *      For the same challenges as {@link HHDuc#parse(byte[])}.
+     * @see #tryParse(byte[])
+     */
+    public static HHDucView parse(byte[] rawBytes) throws HHDuc.UnsupportedDataFormatException {
+        ParseResult<HHDucView, HHDuc.ParseError> result = tryParse(rawBytes);
+        if (!result.isSuccess()) {
+            throw new HHDuc.UnsupportedDataFormatException(result.getError());
+        }
+        return result.getValue();
+    }
+
+    /**
+     * Validate a challenge without copying it and without throwing an exception.
+     *
+     * @see #parse(byte[])
+     */
+    public static ParseResult<HHDucView, HHDuc.ParseError> tryParse(byte[] rawBytes) {
+        final int end = rawBytes.length;
+        int pos = 0;
+
+        // The check byte is computed while reading the challenge
+        HHDCheckByte checkByte = new HHDCheckByte();
+
+        // LC
+        {
+            if (end == 0 || (rawBytes[pos] & 0xff) != end - 1) {
+                return ParseResult.failure(HHDuc.ParseError.WRONG_LC);
+            }
+            checkByte.updateStructure(rawBytes[pos++]);
+        }
+
+        // LS
+        int startCodeLength;
+        FieldEncoding startCodeFormat;
+        {
+            if (pos == end) {
+                return ParseResult.failure(HHDuc.ParseError.MISSING_LS);
+            }
+            int lsByte = rawBytes[pos++] & 0xff;
+            checkByte.updateStructure(lsByte);
+
+            boolean withControlByte = (lsByte & 0x80) != 0;
+            startCodeFormat = (lsByte & 0x40) != 0 ? FieldEncoding.ASCII : FieldEncoding.BCD;
+            startCodeLength = (lsByte & 0x3f);
+
+            // the control byte has been introduced with HHDuc version 1.4
+            if (!withControlByte) {
+                return ParseResult.failure(HHDuc.ParseError.MISSING_CONTROL_BYTE_FLAG);
+            }
+        }
+
+        // Control
+        {
+            if (pos == end) {
+                return ParseResult.failure(HHDuc.ParseError.MISSING_CONTROL);
+            }
+            int controlByte = rawBytes[pos++] & 0xff;
+            checkByte.updateData(controlByte);
+
+            if (controlByte != HHD_CONTROL_BYTE) {
+                return ParseResult.failure(HHDuc.ParseError.UNKNOWN_CONTROL);
+            }
+        }
+
+        // Start Code
+        final int startCodeOffset = pos;
+        {
+            if (end - pos < startCodeLength) {
+                return ParseResult.failure(HHDuc.ParseError.MISSING_START_CODE);
+            }
+
+            checkByte.updateData(rawBytes, pos, startCodeLength);
+            pos += startCodeLength;
+        }
+
+        // Data elements 1..3, positions of their LDE
+        int[] dataElementPositions = new int[3];
+        int dataElementCount = 0;
+        while (end - pos > 1) {
+            if (dataElementCount == dataElementPositions.length) {
+                dataElementPositions = Arrays.copyOf(dataElementPositions, 2 * dataElementCount);
+            }
+            dataElementPositions[dataElementCount] = pos;
+
+            int ldeByte = rawBytes[pos++] & 0xff;
+            checkByte.updateStructure(ldeByte);
+
+            int length = ldeByte & 0x3f;
+
+            if (end - pos < length) {
+                return ParseResult.failure(HHDuc.ParseError.INCOMPLETE_DATA_ELEMENT);
+            }
+
+            if (length > MAX_DATA_ELEMENT_LENGTH
+                    || (!isAscii(ldeByte) && length > MAX_BCD_DATA_ELEMENT_LENGTH)) {
+                return ParseResult.failure(HHDuc.ParseError.DATA_ELEMENT_TOO_LONG);
+            }
+
+            checkByte.updateData(rawBytes, pos, length);
+            pos += length;
+
+            dataElementCount++;
+        }
+
+        // Check byte
+        {
+            if (pos == end) {
+                return ParseResult.failure(HHDuc.ParseError.MISSING_CHECK_BYTE);
+            }
+
+            if ((rawBytes[pos++] & 0xff) != checkByte.getValue()) {
+                return ParseResult.failure(HHDuc.ParseError.WRONG_CHECK_BYTE);
+            }
+        }
+
+        if (pos < end) {
+            return ParseResult.failure(HHDuc.ParseError.UNEXPECTED_DATA);
+        }
+
+        return parseApplicationData(rawBytes, startCodeFormat, startCodeOffset, startCodeLength,
+                dataElementPositions, dataElementCount);
+    }
+
+    /**
+     * @param rawBytes
+     *      Challenge, which has already been validated syntactically.
+     * @param dataElementPositions
+     *      Position of each data element's LDE in <code>rawBytes</code>.
+     */
+    private static ParseResult<HHDucView, HHDuc.ParseError> parseApplicationData(byte[] rawBytes, FieldEncoding startCodeEncoding, int startCodeOffset, int startCodeLength, int[] dataElementPositions, int dataElementCount) {
+
+        long startCode;
+        if (startCodeEncoding == FieldEncoding.ASCII) {
+            startCode = parseAsciiNumber(rawBytes, startCodeOffset, startCodeLength);
+            if (startCode == NOT_NUMERIC) {
+                return ParseResult.failure(HHDuc.ParseError.NON_NUMERIC_START_CODE);
+            }
+        } else {
+            if (!FieldEncoding.isBcd(rawBytes, startCodeOffset, startCodeLength)) {
+                return ParseResult.failure(HHDuc.ParseError.ILLEGAL_START_CODE_FORMAT);
+            }
+            startCode = FieldEncoding.bcdDecode(rawBytes, startCodeOffset, startCodeLength);
+        }
+
+        final VisualisationClass visualisationClass;
+        final DataElementType[] dataElementTypes;
+        final int unpredictableNumber;
+        if (8_000_000L <= startCode && startCode <= 8_999_999L) {
+            // Start code prefix 08: No visualization class
+            visualisationClass = null;
+            dataElementTypes = new DataElementType[0];
+            unpredictableNumber = (int) (startCode % 1_000_000L);
+        } else {
+            if (startCode < 100_000_000_000L || startCode > 299_999_999_999L) {
+                return ParseResult.failure(HHDuc.ParseError.UNSUPPORTED_START_CODE);
+            }
+
+            int vc = (int) (startCode / 1_000_000_000L) % 100;
+            visualisationClass = VisualisationClass.forId(vc);
+            if (visualisationClass == null) {
+                return ParseResult.failure(HHDuc.ParseError.UNKNOWN_VISUALISATION_CLASS);
+            }
+
+            if (startCode < 200_000_000_000L) {
+                dataElementTypes = visualisationClass.getDataElements().toArray(new DataElementType[0]);
+                unpredictableNumber = (int) (startCode % 1_000_000_000L);
+            } else {
+                DataElementType[] declaredTypes = new DataElementType[3];
+                int declaredCount = 0;
+
+                int p = (int) ((startCode / 10_000_000) % 100);
+                int s = (int) ((startCode / 100_000) % 100);
+                int t = (int) ((startCode / 1000) % 100);
+                if (p >= 10) {
+                    declaredTypes[declaredCount++] = DataElementType.forId(p);
+                    if (s >= 10) {
+                        declaredTypes[declaredCount++] = DataElementType.forId(s);
+                        if (t >= 10) {
+                            declaredTypes[declaredCount++] = DataElementType.forId(t);
+                            unpredictableNumber = (int) (startCode % 1000L);
+                        } else {
+                            unpredictableNumber = (int) (startCode % 10_000L);
+                        }
+                    } else {
+                        unpredictableNumber = (int) (startCode % 1_000_000L);
+                    }
+                } else {
+                    unpredictableNumber = (int) (startCode % 100_000_000L);
+                }
+
+                for (int i = 0; i < declaredCount; i++) {
+                    if (declaredTypes[i] == null) {
+                        return ParseResult.failure(HHDuc.ParseError.UNKNOWN_DATA_ELEMENT);
+                    }
+                }
+
+                dataElementTypes = HHDuc.distinct(declaredTypes, declaredCount);
+            }
+        }
+
+        if (dataElementTypes.length < dataElementCount) {
+            return ParseResult.failure(HHDuc.ParseError.UNDECLARED_DATA_ELEMENT);
+        }
+
+        for (int i = 0; i < dataElementCount; i ++) {
+            int ldeByte = rawBytes[dataElementPositions[i]] & 0xff;
+            if (isAscii(ldeByte)) {
+                // Any byte can be decoded
+                continue;
+            }
+
+            if (!DataElementType.Format.NUMERIC.equals(dataElementTypes[i].getFormat())) {
+                return ParseResult.failure(HHDuc.ParseError.NON_NUMERIC_BCD_DATA_ELEMENT);
+            }
+
+            int length = ldeByte & 0x3f;
+            if (!FieldEncoding.isBcd(rawBytes, dataElementPositions[i] + 1, length)) {
+                return ParseResult.failure(HHDuc.ParseError.ILLEGAL_NUMERIC_DATA);
+            }
+        }
+
+        return ParseResult.success(new HHDucView(rawBytes, visualisationClass, dataElementTypes,
+                unpredictableNumber, dataElementPositions, dataElementCount));
+    }
+
+    /** Result of {@link #parseAsciiNumber(byte[], int, int)} for illegal numbers */
+    private static final long NOT_NUMERIC = Long.MIN_VALUE;
+
+    /**
+     * Parse an ASCII coded number like {@link Integer#parseInt(String)}, but without throwing
+     * an exception.
+     *
+     * @return
+     *      The number or {@link #NOT_NUMERIC}.
+     */
+    private static long parseAsciiNumber(byte[] data, int off, int len) {
+        int i = 0;
+        boolean negative = false;
+        if (len > 0 && (data[off] == '-' || data[off] == '+')) {
+            negative = data[off] == '-';
+            i++;
+        }
+        if (i == len) {
+            return NOT_NUMERIC;
+        }
+
+        final long limit = negative ? -(long) Integer.MIN_VALUE : Integer.MAX_VALUE;
+        long result = 0;
+        for (; i < len; i++) {
+            int digit = data[off + i] - '0';
+            if (digit < 0 || digit > 9) {
+                return NOT_NUMERIC;
+            }
+
+            result = result * 10 + digit;
+            if (result > limit) {
+                return NOT_NUMERIC;
+            }
+        }
+
+        return negative ? -result : result;
+    }
+
+    private static boolean isAscii(int ldeByte) {
+        return (ldeByte & 0x40) != 0;
+    }
+
+    public VisualisationClass getVisualisationClass() {
+        return visualisationClass;
+    }
+
+    /**
+     * @return
+     *      Read-only list of the data element types, in the order of the challenge.
+     */
+    public List<DataElementType> getDataElementTypes() {
+        return dataElementTypeList;
+    }
+
+    /** Shall the ATC be displayed together with the generated TAN? */
+    public boolean isDisplayAtc() {
+        return visualisationClass == null;
+    }
+
+    /**
+     * Decode the value of a data element. The result is the same as
+     * {@link HHDuc#getDataElement(DataElementType)} after parsing the challenge.
+     *
+     * @return
+     *      <code>null</code>, if the data element is not declared by the challenge.
+     */
+    public String getDataElement(DataElementType type) {
+        for (int i = 0; i < dataElementTypes.length; i++) {
+            if (dataElementTypes[i] == type) {
+                return getDataElement(i);
+            }
+        }
+        return null;
+    }
+
+    private String getDataElement(int index) {
+        if (index >= dataElementCount) {
+            return "";
+        }
+
+        int ldeByte = rawBytes[dataElementPositions[index]] & 0xff;
+        int offset = dataElementPositions[index] + 1;
+        int length = ldeByte & 0x3f;
+
+        if (isAscii(ldeByte)) {
+            return HHDuc.truncate(dataElementTypes[index],
+                    DKCharset.decode(rawBytes, offset, length));
+        } else if (length == 0) {
+            return "";
+        } else {
+            return HHDuc.truncate(dataElementTypes[index],
+                    Long.toString(FieldEncoding.bcdDecode(rawBytes, offset, length)));
+        }
+    }
+
+    /**
+     * Encode the value of a data element for the {@link VisDataBuffer}, without decoding it into
+     * a {@link String}. The result is the same as encoding
+     * {@link #getDataElement(DataElementType)} with the {@link DKCharset}.
+     *
+     * @param index
+     *      Index of the data element type in {@link #getDataElementTypes()}.
+     * @param dest
+     *      Buffer with a length of at least {@link #MAX_DATA_ELEMENT_LENGTH}.
+     * @return
+     *      Number of bytes written to <code>dest</code>.
+     */
+    int encodeDataElement(int index, byte[] dest) {
+        if (index >= dataElementCount) {
+            return 0;
+        }
+
+        final int maxLength = dataElementTypes[index].getMaxLength();
+        int ldeByte = rawBytes[dataElementPositions[index]] & 0xff;
+        int offset = dataElementPositions[index] + 1;
+        int length = ldeByte & 0x3f;
+
+        if (isAscii(ldeByte)) {
+            boolean truncated = length > maxLength;
+            int n = truncated ? maxLength - ELLIPSIS.length() : length;
+            for (int i = 0; i < n; i++) {
+                dest[i] = (byte) DKCharset.normalize(rawBytes[offset + i]);
+            }
+            if (truncated) {
+                n += DKCharset.encode(ELLIPSIS, dest, n);
+            }
+            return n;
+        }
+
+        if (length == 0) {
+            return 0;
+        }
+
+        long value = FieldEncoding.bcdDecode(rawBytes, offset, length);
+        if (value < 0) {
+            // Overflow of the maximum BCD length, which is formatted with a sign
+            return DKCharset.encode(getDataElement(index), dest, 0);
+        }
+
+        int digits = 1;
+        for (long v = value; v >= 10; v /= 10) {
+            digits++;
+        }
+
+        boolean truncated = digits > maxLength;
+        int n = truncated ? maxLength - ELLIPSIS.length() : digits;
+        for (int i = digits; i > n; i--) {
+            value /= 10;
+        }
+        for (int i = n - 1; i >= 0; i--) {
+            dest[i] = (byte) ('0' + (int) (value % 10));
+            value /= 10;
+        }
+        if (truncated) {
+            n += DKCharset.encode(ELLIPSIS, dest, n);
+        }
+        return n;
+    }
+
+    /**
+     * BCD encoded start code, as {@link HHDuc#getEncodedStartCode()} would compute it after
+     * parsing the challenge. This is not necessarily the start code of the challenge, which may
+     * be encoded differently.
+     *
+     * @return
+     *      Shared array, which must not be modified.
+     */
+    byte[] getEncodedStartCode() {
+        return encodedStartCode;
+    }
+
+    /**
+     * Decode all data elements into a modifiable {@link HHDuc}.
+     */
+    public HHDuc toHHDuc() {
+        HHDuc hhduc = new HHDuc(visualisationClass, dataElementTypes);
+        hhduc.setUnpredictableNumber(unpredictableNumber);
+
+        for (int i = 0; i < dataElementCount; i++) {
+            hhduc.setDataElement(dataElementTypes[i], getDataElement(i));
+        }
+
+        return hhduc;
+    }
+
+}
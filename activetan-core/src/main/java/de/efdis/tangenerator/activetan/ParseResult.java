@@ -0,0 +1,74 @@
+/*
+ * Copyright (c) 2026 EFDIS AG Bankensoftware, Freising <info@efdis.de>.
+ *
+ * This file is part of the activeTAN app for Android.
+ *
+ * The activeTAN app is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * The activeTAN app is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with the activeTAN app.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package de.efdis.tangenerator.activetan;
+
+/**
+ * Outcome of parsing untrusted data: either the parsed value or an error code.
+ * <p/>
+ * In contrast to an exception, a failed result does not capture a stack trace. Rejecting invalid
+ * input, e. g., QR codes of other applications, is therefore as cheap as accepting it.
+ *
+ * @param <T>
+ *      Type of the parsed value
+ * @param <E>
+ *      Error codes of the parser
+ */
+public final class ParseResult<T, E extends Enum<E>> {
+
+    private final T value;
+    private final E error;
+
+    private ParseResult(T value, E error) {
+        this.value = value;
+        this.error = error;
+    }
+
+    static <T, E extends Enum<E>> ParseResult<T, E> success(T value) {
+        return new ParseResult<>(value, null);
+    }
+
+    static <T, E extends Enum<E>> ParseResult<T, E> failure(E error) {
+        return new ParseResult<>(null, error);
+    }
+
+    public boolean isSuccess() {
+        return error == null;
+    }
+
+    /**
+     * @throws IllegalStateException
+     *      If the input could not be parsed, see {@link #getError()}.
+     */
+    public T getValue() {
+        if (error != null) {
+            throw new IllegalStateException("No value, parsing failed with " + error);
+        }
+        return value;
+    }
+
+    /**
+     * @return
+     *      <code>null</code>, if the input has been parsed successfully.
+     */
+    public E getError() {
+        return error;
+    }
+
+}
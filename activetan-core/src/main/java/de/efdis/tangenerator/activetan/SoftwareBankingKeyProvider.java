@@ -0,0 +1,92 @@
+/*
+ * Copyright (c) 2026 EFDIS AG Bankensoftware, Freising <info@efdis.de>.
+ *
+ * This file is part of the activeTAN app for Android.
+ *
+ * The activeTAN app is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * The activeTAN app is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with the activeTAN app.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package de.efdis.tangenerator.activetan;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+import javax.crypto.SecretKey;
+import javax.crypto.spec.SecretKeySpec;
+
+/**
+ * Banking keys in memory, which can be used without the Android key store, e. g., for testing.
+ */
+public class SoftwareBankingKeyProvider implements BankingKeyProvider {
+
+    private static final String BANKING_KEY_ALGORITHM = "AES";
+
+    /** Key material is only accessed with the lock held, because it is zeroed on removal */
+    private final Map<String, byte[]> keys = new HashMap<>();
+
+    /**
+     * Store a secret banking key.
+     *
+     * @param keyAlias
+     *      Alias of the banking token's key.
+     * @param keyMaterial
+     *      AES key, which will be copied.
+     */
+    public synchronized void putBankingKey(String keyAlias, byte[] keyMaterial) {
+        if (keyMaterial.length != BankingKeyProvider.BANKING_KEY_LENGTH) {
+            throw new IllegalArgumentException("invalid key length");
+        }
+
+        byte[] replaced = keys.put(keyAlias, keyMaterial.clone());
+        if (replaced != null) {
+            Arrays.fill(replaced, (byte) 0);
+        }
+    }
+
+    /** Remove a secret banking key and clear it from memory. */
+    public synchronized void removeBankingKey(String keyAlias) {
+        byte[] removed = keys.remove(keyAlias);
+        if (removed != null) {
+            Arrays.fill(removed, (byte) 0);
+        }
+    }
+
+    @Override
+    public BankingKey getBankingKey(String keyAlias) {
+        final SecretKey key;
+        synchronized (this) {
+            byte[] keyMaterial = keys.get(keyAlias);
+            if (keyMaterial == null) {
+                return null;
+            }
+
+            // The key material is copied, before it may be zeroed by removeBankingKey
+            key = new SecretKeySpec(keyMaterial, BANKING_KEY_ALGORITHM);
+        }
+
+        return new BankingKey() {
+            @Override
+            public SecretKey getKeyMaterial() {
+                return key;
+            }
+
+            @Override
+            public void close() {
+                // The key material is kept in memory until it is removed
+            }
+        };
+    }
+
+}
@@ -20,18 +20,13 @@
 package de.efdis.tangenerator.activetan;
 
 import java.security.GeneralSecurityException;
+import java.security.InvalidAlgorithmParameterException;
 import java.security.InvalidKeyException;
 import java.security.KeyStoreException;
-import java.security.MessageDigest;
 import java.text.DecimalFormat;
 import java.util.Arrays;
 
 import javax.crypto.Mac;
-import javax.crypto.SecretKey;
-
-import de.efdis.tangenerator.persistence.database.BankingToken;
-import de.efdis.tangenerator.persistence.keystore.AutoDestroyable;
-import de.efdis.tangenerator.persistence.keystore.BankingKeyRepository;
 
 public class TanGenerator {
 
@@ -60,8 +55,12 @@ public class TanGenerator {
     /**
      * Compute a tan with a secret master key, transaction counter and transaction data.
      *
-     * @param token
-     *      Defines secret key alias in the key store and the current transaction counter.
+     * @param keyProvider
+     *      Source of the secret key.
+     * @param keyAlias
+     *      Alias of the banking token's secret key.
+     * @param transactionCounter
+     *      Current transaction counter (ATC) of the banking token.
      * @param hhduc
      *      Transaction data
      * @return
@@ -69,77 +68,105 @@ public class TanGenerator {
      * @throws GeneralSecurityException
      *      If the secret key cannot be used
      */
-    public static int generateTan(BankingToken token, HHDuc hhduc) throws GeneralSecurityException {
-        VisDataBuffer visData = new VisDataBuffer();
+    public static int generateTan(BankingKeyProvider keyProvider, String keyAlias, int transactionCounter, HHDuc hhduc) throws GeneralSecurityException {
+        VisDataBuffer visData = VisDataBuffer.withHashedHeader(VIS_DATA_HASH);
         visData.write(hhduc);
 
-        MessageDigest hashAlgorithm = MessageDigest.getInstance(VIS_DATA_HASH);
-        byte[] visDataDigest = visData.getHash(hashAlgorithm);
+        byte[] visDataDigest = visData.getHash();
 
-        return generateTan(token, visDataDigest);
+        return generateTan(keyProvider, keyAlias, transactionCounter, visDataDigest);
+    }
+
+    /**
+     * Compute a tan directly from a validated challenge, without decoding its data elements.
+     *
+     * @see #generateTan(BankingKeyProvider, String, int, HHDuc)
+     */
+    public static int generateTan(BankingKeyProvider keyProvider, String keyAlias, int transactionCounter, HHDucView hhduc) throws GeneralSecurityException {
+        VisDataBuffer visData = VisDataBuffer.withHashedHeader(VIS_DATA_HASH);
+        visData.write(hhduc);
+
+        byte[] visDataDigest = visData.getHash();
+
+        return generateTan(keyProvider, keyAlias, transactionCounter, visDataDigest);
     }
 
     /**
      * Compute a tan for initialization of the security token with a secret master key.
      *
-     * @param token
-     *      Defines secret key alias in the key store. The transaction counter must be zero.
+     * @param keyProvider
+     *      Source of the secret key.
+     * @param keyAlias
+     *      Alias of the banking token's secret key.
+     * @param transactionCounter
+     *      Current transaction counter (ATC) of the banking token, which must be zero.
      * @return
      *      TAN for initialization of the security token (6-digit decimal number)
      * @throws GeneralSecurityException
      *      If the secret key cannot be used
      */
-    public static int generateTanForInitialization(BankingToken token) throws GeneralSecurityException {
-        if (token.transactionCounter != 0) {
+    public static int generateTanForInitialization(BankingKeyProvider keyProvider, String keyAlias, int transactionCounter) throws GeneralSecurityException {
+        if (transactionCounter != 0) {
             throw new IllegalStateException(
                     "static TAN can only be generated for a new token");
         }
 
-        return generateTan(token, GENERATE_STATIC_TAN);
+        return generateTan(keyProvider, keyAlias, transactionCounter, GENERATE_STATIC_TAN);
     }
 
     /**
      * Compute a tan using an application cryptogram from arbitrary input data.
      *
-     * @param token
-     *      Defines secret key alias in the key store and the current transaction counter.
+     * @param keyProvider
+     *      Source of the secret key.
+     * @param keyAlias
+     *      Alias of the banking token's secret key.
+     * @param transactionCounter
+     *      Current transaction counter (ATC) of the banking token.
      * @return
      *      TAN (6-digit decimal number)
      * @throws GeneralSecurityException
      *      If the secret key cannot be used
      */
-    private static int generateTan(BankingToken token, byte[] commandData) throws GeneralSecurityException {
-        byte[] aac = computeApplicationAuthenticationCryptogram(token, commandData);
+    private static int generateTan(BankingKeyProvider keyProvider, String keyAlias, int transactionCounter, byte[] commandData) throws GeneralSecurityException {
+        byte[] aac = computeApplicationAuthenticationCryptogram(keyProvider, keyAlias, transactionCounter, commandData);
 
         return decimalization(aac, TAN_DIGITS);
     }
 
     /**
-     * Cryptographically sign a digest with the transaction counter and secret banking key
-     * associated with the {@link BankingToken}.
+     * Cryptographically sign a digest with the transaction counter and secret banking key.
      *
-     * @param token
-     *      Defines secret key and transaction counter (ATC).
+     * @param keyProvider
+     *      Source of the secret key.
+     * @param keyAlias
+     *      Alias of the banking token's secret key.
+     * @param atc
+     *      Application transaction counter.
      * @param digest
      *      Hash value of the data to be signed, e. g., from a {@link VisDataBuffer}.
      * @return
      *      HMAC value.
+     * @throws KeyStoreException
+     *      If the secret key is missing or cannot be loaded
      * @throws InvalidKeyException
      *      If the secret key cannot be used, e. g., because of unsatisfied protection constraints
      */
-    private static byte[] computeApplicationAuthenticationCryptogram(BankingToken token, byte[] digest) throws KeyStoreException, InvalidKeyException {
-        int atc = token.transactionCounter;
-
+    private static byte[] computeApplicationAuthenticationCryptogram(BankingKeyProvider keyProvider, String keyAlias, int atc, byte[] digest) throws KeyStoreException, InvalidKeyException, InvalidAlgorithmParameterException {
         byte[] inputAAC = Arrays.copyOf(digest, 33);
         inputAAC[31] = (byte) ((atc & 0xff00) >> 8);
         inputAAC[32] = (byte) (atc & 0x00ff);
 
         // AAC computation
         try (
-                AutoDestroyable<SecretKey> key = BankingKeyRepository.getBankingKey(token.keyAlias)
+                BankingKeyProvider.BankingKey key = keyProvider.getBankingKey(keyAlias)
         ) {
+            if (key == null) {
+                throw new KeyStoreException("Banking key is missing");
+            }
+
             Mac mac = AesCbcMac.getInstance();
-            mac.init(key.getKeyMaterial());
+            mac.init(key.getKeyMaterial(), key.getKeyIdentity());
             return mac.doFinal(inputAAC);
         }
     }
@@ -0,0 +1,305 @@
+/*
+ * Copyright (c) 2019 EFDIS AG Bankensoftware, Freising <info@efdis.de>.
+ *
+ * This file is part of the activeTAN app for Android.
+ *
+ * The activeTAN app is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * The activeTAN app is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with the activeTAN app.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package de.efdis.tangenerator.activetan;
+
+import java.io.ByteArrayOutputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Serialization of transaction data for TAN generation.
+ * <p/>
+ * By default, the data is buffered and hashed in {@link #getHash(MessageDigest)}, which is useful
+ * for debugging. For TAN generation, the data should be passed to a {@link MessageDigest}
+ * immediately, see {@link #VisDataBuffer(MessageDigest)} and {@link #withHashedHeader(String)}.
+ */
+public class VisDataBuffer {
+
+    private static final int FIELD_SEPARATOR = 0xe1;
+    private static final int START_CODE_SEPARATOR = 0xe0;
+    static final int MAX_DATABLOCK_LENGTH = 12;
+    private static final int MAX_HASH_LENGTH = 29;
+
+    /** Buffered content, <code>null</code> for streaming */
+    private final ByteArrayOutputStream content;
+
+    /** Hash algorithm for streaming, <code>null</code> for buffering */
+    private final MessageDigest digest;
+
+    /** Reused for encoding text with the {@link DKCharset} */
+    private byte[] encodeBuffer = new byte[MAX_DATABLOCK_LENGTH];
+
+    /** Has the {@link #digest} already processed the constant header? */
+    private final boolean headerHashed;
+
+    /**
+     * Hash algorithms, which have processed the constant header. Since the header is followed by
+     * the start code, this is the only part of the content that can be hashed in advance.
+     */
+    private static final Map<String, MessageDigest> hashedHeaders = new ConcurrentHashMap<>();
+
+    /**
+     * Create a buffer, which keeps the content until {@link #getHash(MessageDigest)} is called.
+     */
+    public VisDataBuffer() {
+        content = new ByteArrayOutputStream();
+        digest = null;
+        headerHashed = false;
+    }
+
+    /**
+     * Create a buffer, which hashes the content immediately.
+     *
+     * @param digest
+     *      Hash algorithm, which will be reset.
+     */
+    public VisDataBuffer(MessageDigest digest) {
+        content = null;
+        this.digest = digest;
+        this.headerHashed = false;
+        digest.reset();
+    }
+
+    private VisDataBuffer(MessageDigest digestWithHeader, boolean headerHashed) {
+        content = null;
+        this.digest = digestWithHeader;
+        this.headerHashed = headerHashed;
+    }
+
+    /**
+     * Create a buffer, which hashes the content immediately. The constant header of the content
+     * is not hashed again, but resumed from a cached state of the hash algorithm.
+     *
+     * @param algorithm
+     *      Name of the hash algorithm, see {@link MessageDigest#getInstance(String)}.
+     */
+    public static VisDataBuffer withHashedHeader(String algorithm) throws NoSuchAlgorithmException {
+        MessageDigest prototype = hashedHeaders.get(algorithm);
+        if (prototype == null) {
+            prototype = MessageDigest.getInstance(algorithm);
+            new VisDataBuffer(prototype).writeHeader();
+            hashedHeaders.putIfAbsent(algorithm, prototype);
+        }
+
+        MessageDigest digest;
+        try {
+            synchronized (prototype) {
+                digest = (MessageDigest) prototype.clone();
+            }
+        } catch (CloneNotSupportedException e) {
+            // The provider does not support this optimization
+            return new VisDataBuffer(MessageDigest.getInstance(algorithm));
+        }
+
+        return new VisDataBuffer(digest, true);
+    }
+
+    public void write(byte[] data) {
+        if (digest != null) {
+            digest.update(data);
+        } else {
+            content.write(data, 0, data.length);
+        }
+    }
+
+    private void write(byte[] data, int off, int len) {
+        if (digest != null) {
+            digest.update(data, off, len);
+        } else {
+            content.write(data, off, len);
+        }
+    }
+
+    public void write(int b) {
+        if (digest != null) {
+            digest.update((byte) b);
+        } else {
+            content.write(b);
+        }
+    }
+
+    public void write(String text) {
+        write(text, 0, text.length());
+    }
+
+    private void write(String text, int start, int end) {
+        ensureEncodeBuffer(end - start);
+        int length = DKCharset.encode(text, start, end, encodeBuffer, 0);
+        write(encodeBuffer, 0, length);
+    }
+
+    /** Write the first data block and the start code separator, which never change */
+    private void writeHeader() {
+        write(FIELD_SEPARATOR);
+        write("Start-Code:");
+        write(START_CODE_SEPARATOR);
+    }
+
+    public void write(HHDuc hhduc) {
+        int numDataBlocks = writeStartCode(
+                hhduc.getEncodedStartCode(), hhduc.getVisualisationClass());
+
+        for (DataElementType dataElementType : hhduc.getDataElementTypes()) {
+            String value = hhduc.getDataElement(dataElementType);
+
+            ensureEncodeBuffer(value.length());
+            int length = DKCharset.encode(value, encodeBuffer, 0);
+            numDataBlocks += writeDataElement(dataElementType, encodeBuffer, length);
+        }
+
+        writeNumDataBlocks(numDataBlocks);
+    }
+
+    /**
+     * Write the same content as {@link #write(HHDuc)} for the parsed challenge, but encode the
+     * data elements directly from the challenge.
+     */
+    public void write(HHDucView hhduc) {
+        int numDataBlocks = writeStartCode(
+                hhduc.getEncodedStartCode(), hhduc.getVisualisationClass());
+
+        ensureEncodeBuffer(HHDucView.MAX_DATA_ELEMENT_LENGTH);
+        List<DataElementType> dataElementTypes = hhduc.getDataElementTypes();
+        for (int i = 0; i < dataElementTypes.size(); i++) {
+            int length = hhduc.encodeDataElement(i, encodeBuffer);
+            numDataBlocks += writeDataElement(dataElementTypes.get(i), encodeBuffer, length);
+        }
+
+        writeNumDataBlocks(numDataBlocks);
+    }
+
+    private void ensureEncodeBuffer(int length) {
+        if (encodeBuffer.length < length) {
+            encodeBuffer = new byte[length];
+        }
+    }
+
+    /**
+     * Write the header, start code and visualisation class.
+     *
+     * @return
+     *      Number of data blocks written
+     */
+    private int writeStartCode(byte[] encodedStartCode, VisualisationClass visualisationClass) {
+        int numDataBlocks = 0;
+
+        if (!headerHashed) {
+            writeHeader();
+        }
+        numDataBlocks ++;
+
+        write(encodedStartCode);
+        numDataBlocks ++;
+
+        if (visualisationClass != null) {
+            write(FIELD_SEPARATOR);
+            write(visualisationClass.getEncodedVisDataLine1());
+            numDataBlocks++;
+
+            if (visualisationClass.getEncodedVisDataLine2().length > 0) {
+                write(FIELD_SEPARATOR);
+                write(visualisationClass.getEncodedVisDataLine2());
+                numDataBlocks++;
+            }
+        }
+
+        return numDataBlocks;
+    }
+
+    /**
+     * Write the label and the value of a data element, which is split into data blocks.
+     *
+     * @return
+     *      Number of data blocks written
+     */
+    private int writeDataElement(DataElementType dataElementType, byte[] value, int length) {
+        int numDataBlocks = 0;
+
+        for (int i = 0; i < length; i+= MAX_DATABLOCK_LENGTH) {
+            write(FIELD_SEPARATOR);
+            if (length > MAX_DATABLOCK_LENGTH) {
+                write(dataElementType.getEncodedNumberedVisDataLine1(
+                        i / MAX_DATABLOCK_LENGTH + 1));
+            } else {
+                write(dataElementType.getEncodedVisDataLine1());
+            }
+            numDataBlocks ++;
+
+            write(FIELD_SEPARATOR);
+            write(value, i, Math.min(length - i, MAX_DATABLOCK_LENGTH));
+            numDataBlocks ++;
+        }
+
+        return numDataBlocks;
+    }
+
+    private void writeNumDataBlocks(int numDataBlocks) {
+        if (numDataBlocks < 0x0f) {
+            write(0xb0 | numDataBlocks);
+        } else {
+            write(0xbf);
+            write(numDataBlocks);
+        }
+    }
+
+    /**
+     * Compute the hash value of the buffered content.
+     *
+     * @param algorithm
+     *      Hash algorithm for buffered content. For streamed content, this must be the algorithm
+     *      passed to {@link #VisDataBuffer(MessageDigest)}.
+     */
+    public byte[] getHash(MessageDigest algorithm) {
+        if (digest != null) {
+            if (algorithm != digest) {
+                throw new IllegalStateException(
+                        "Content has already been hashed with another algorithm");
+            }
+            return getHash();
+        }
+
+        algorithm.reset();
+        return truncate(algorithm.digest(content.toByteArray()));
+    }
+
+    /**
+     * Complete the hash value of the streamed content.
+     */
+    public byte[] getHash() {
+        if (digest == null) {
+            throw new IllegalStateException("No hash algorithm for buffered content");
+        }
+
+        return truncate(digest.digest());
+    }
+
+    private static byte[] truncate(byte[] digest) {
+        if (digest.length > MAX_HASH_LENGTH) {
+            digest = Arrays.copyOf(digest, MAX_HASH_LENGTH);
+        }
+
+        return digest;
+    }
+
+}
@@ -20,8 +20,6 @@
 package de.efdis.tangenerator.activetan;
 
 import java.util.List;
-import java.util.Map;
-import java.util.TreeMap;
 
 public enum VisualisationClass {
     EMPTY(0, "Bankauftrag", "allgemein"),
@@ -189,11 +187,17 @@ public enum VisualisationClass {
     private final String visDataLine2;
     private final List<DataElementType> dataElements;
 
+    /** Lines encoded with the {@link DKCharset}, must not be modified */
+    private final byte[] encodedVisDataLine1;
+    private final byte[] encodedVisDataLine2;
+
     VisualisationClass(int id, String visDataLine1, String visDataLine2, DataElementType... dataElements) {
         this.id = id;
         this.visDataLine1 = visDataLine1;
         this.visDataLine2 = visDataLine2;
         this.dataElements = List.of(dataElements);
+        this.encodedVisDataLine1 = DKCharset.toBytes(visDataLine1);
+        this.encodedVisDataLine2 = DKCharset.toBytes(visDataLine2);
     }
 
     public int getId() {
@@ -204,20 +208,29 @@ public enum VisualisationClass {
 
     public String getVisDataLine2() { return visDataLine2; }
 
+    /** {@link #getVisDataLine1()} encoded with the {@link DKCharset}, must not be modified */
+    byte[] getEncodedVisDataLine1() { return encodedVisDataLine1; }
+
+    /** {@link #getVisDataLine2()} encoded with the {@link DKCharset}, must not be modified */
+    byte[] getEncodedVisDataLine2() { return encodedVisDataLine2; }
+
     public List<DataElementType> getDataElements() {
         return dataElements;
     }
 
-    private static final Map<Integer, VisualisationClass> byId;
+    /** Lookup table, all IDs are below 100 */
+    private static final VisualisationClass[] byId = new VisualisationClass[100];
     static {
-        byId = new TreeMap<>();
         for (VisualisationClass vc : VisualisationClass.values()) {
-            byId.put(vc.getId(), vc);
+            byId[vc.getId()] = vc;
         }
     }
 
     public static VisualisationClass forId(int id) {
-        return byId.get(id);
+        if (id < 0 || id >= byId.length) {
+            return null;
+        }
+        return byId[id];
     }
 
 }
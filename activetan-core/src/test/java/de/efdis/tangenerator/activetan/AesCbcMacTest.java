@@ -22,6 +22,7 @@ package de.efdis.tangenerator.activetan;
 import org.junit.Assert;
 import org.junit.Test;
 
+import java.nio.ByteBuffer;
 import java.security.GeneralSecurityException;
 import java.security.Key;
 import java.util.Arrays;
@@ -110,4 +111,77 @@ public class AesCbcMacTest {
         Assert.assertArrayEquals(expectedMac, actualMac);
     }
 
+    @Test
+    public void checkReusedInstance() throws GeneralSecurityException {
+        Mac algorithm = AesCbcMac.getInstance();
+        algorithm.init(new SecretKeySpec(RFC_TEST_KEY, "AES"));
+
+        for (int messageLength : new int[]{64, 0, 40, 16, 40}) {
+            byte[] message = Arrays.copyOf(RFC_TEST_MESSAGE, messageLength);
+            Assert.assertArrayEquals(computeMac(messageLength), algorithm.doFinal(message));
+        }
+    }
+
+    @Test
+    public void checkIncrementalUpdate() throws GeneralSecurityException {
+        Mac algorithm = AesCbcMac.getInstance();
+        algorithm.init(new SecretKeySpec(RFC_TEST_KEY, "AES"));
+
+        // single bytes
+        for (byte b : RFC_TEST_MESSAGE) {
+            algorithm.update(b);
+        }
+        Assert.assertArrayEquals(computeMac(64), algorithm.doFinal());
+
+        // direct buffer without backing array
+        ByteBuffer buffer = ByteBuffer.allocateDirect(40);
+        buffer.put(RFC_TEST_MESSAGE, 0, 40);
+        buffer.flip();
+        algorithm.update(buffer);
+        Assert.assertArrayEquals(computeMac(40), algorithm.doFinal());
+
+        // unaligned chunks
+        algorithm.update(RFC_TEST_MESSAGE, 0, 7);
+        algorithm.update(RFC_TEST_MESSAGE, 7, 25);
+        algorithm.update(RFC_TEST_MESSAGE, 32, 32);
+        Assert.assertArrayEquals(computeMac(64), algorithm.doFinal());
+    }
+
+    @Test
+    public void checkResetMessage() throws GeneralSecurityException {
+        Mac algorithm = AesCbcMac.getInstance();
+        algorithm.init(new SecretKeySpec(RFC_TEST_KEY, "AES"));
+
+        // The block cipher is not finalized for the abandoned message
+        algorithm.update(RFC_TEST_MESSAGE, 0, 40);
+        algorithm.reset();
+        Assert.assertArrayEquals(computeMac(64), algorithm.doFinal(RFC_TEST_MESSAGE));
+
+        // The block cipher is initialized again after the final block
+        algorithm.update(RFC_TEST_MESSAGE, 0, 40);
+        Assert.assertArrayEquals(computeMac(40), algorithm.doFinal());
+    }
+
+    @Test
+    public void checkSubKeyCacheByAlias() throws GeneralSecurityException {
+        String alias = "checkSubKeyCacheByAlias";
+        byte[] otherKey = RFC_TEST_KEY.clone();
+        otherKey[0] ^= 0x01;
+
+        Mac algorithm = AesCbcMac.getInstance();
+        algorithm.init(new SecretKeySpec(otherKey, "AES"));
+        byte[] otherMac = algorithm.doFinal();
+
+        algorithm.init(new SecretKeySpec(RFC_TEST_KEY, "AES"), new AesCbcMac.KeyIdentity(alias));
+        Assert.assertArrayEquals(computeMac(0), algorithm.doFinal());
+        algorithm.init(new SecretKeySpec(RFC_TEST_KEY, "AES"), new AesCbcMac.KeyIdentity(alias));
+        Assert.assertArrayEquals(computeMac(0), algorithm.doFinal());
+
+        // The key of the alias has been replaced
+        AesCbcMac.removeCachedSubKeys(alias);
+        algorithm.init(new SecretKeySpec(otherKey, "AES"), new AesCbcMac.KeyIdentity(alias));
+        Assert.assertArrayEquals(otherMac, algorithm.doFinal());
+        AesCbcMac.removeCachedSubKeys(alias);
+    }
+
 }
@@ -0,0 +1,176 @@
+/*
+ * Copyright (c) 2026 EFDIS AG Bankensoftware, Freising <info@efdis.de>.
+ *
+ * This file is part of the activeTAN app for Android.
+ *
+ * The activeTAN app is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * The activeTAN app is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with the activeTAN app.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package de.efdis.tangenerator.activetan;
+
+import junit.framework.TestCase;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+
+public class BQRContainerTest {
+
+    private static final byte[] PAYLOAD = new byte[] {'N', 0x03, 0x01, 0x02, 0x03};
+
+    @Test
+    public void wrapAndUnwrap() throws BQRContainer.InvalidBankingQrCodeException {
+        for (BQRContainer.ContentType contentType : BQRContainer.ContentType.values()) {
+            byte[] bqr = BQRContainer.wrap(contentType, PAYLOAD);
+            BQRContainer.Content content = BQRContainer.unwrap(bqr);
+
+            TestCase.assertEquals(contentType, content.getContentType());
+            if (contentType == BQRContainer.ContentType.TRANSACTION_DATA) {
+                // without AMS flag
+                Assert.assertArrayEquals(new byte[] {0x03, 0x01, 0x02, 0x03}, content.getPayload());
+            } else {
+                Assert.assertArrayEquals(PAYLOAD, content.getPayload());
+            }
+        }
+    }
+
+    @Test
+    public void amsDataBlockIsSkipped() throws BQRContainer.InvalidBankingQrCodeException {
+        byte[] bqr = BQRContainer.wrap(BQRContainer.ContentType.TRANSACTION_DATA,
+                new byte[] {'J', 0x01, 0x42, 0x02, 0x00, 0x00});
+
+        Assert.assertArrayEquals(new byte[] {0x01, 0x42}, BQRContainer.unwrap(bqr).getPayload());
+    }
+
+    private static void assertUnwrapError(BQRContainer.UnwrapError expected, byte[] bqr) {
+        ParseResult<BQRContainer.Content, BQRContainer.UnwrapError> result
+                = BQRContainer.tryUnwrap(bqr);
+        TestCase.assertFalse(result.isSuccess());
+        TestCase.assertEquals(expected, result.getError());
+
+        try {
+            BQRContainer.unwrap(bqr);
+            TestCase.fail("exception expected for " + expected);
+        } catch (BQRContainer.InvalidBankingQrCodeException e) {
+            TestCase.assertEquals(expected, e.getError());
+            TestCase.assertEquals(expected.getMessage(), e.getMessage());
+        }
+    }
+
+    private static byte[] wrapTransactionData(int... payload) {
+        byte[] bytes = new byte[payload.length];
+        for (int i = 0; i < payload.length; i++) {
+            bytes[i] = (byte) payload[i];
+        }
+        return BQRContainer.wrap(BQRContainer.ContentType.TRANSACTION_DATA, bytes);
+    }
+
+    @Test
+    public void unwrapErrors() {
+        assertUnwrapError(BQRContainer.UnwrapError.MISSING_PREFIX, new byte[] {'D'});
+        assertUnwrapError(BQRContainer.UnwrapError.MISSING_CHECKSUM, new byte[] {'D', 'K', 0});
+
+        byte[] wrongChecksum = BQRContainer.wrap(BQRContainer.ContentType.KEY_MATERIAL, PAYLOAD);
+        wrongChecksum[wrongChecksum.length - 1] ^= 1;
+        assertUnwrapError(BQRContainer.UnwrapError.WRONG_CHECKSUM, wrongChecksum);
+
+        assertUnwrapError(BQRContainer.UnwrapError.EMPTY, wrapTransactionData());
+
+        // correct checksum and scrambling, but unknown prefix
+        byte[] unknownPrefix = new byte[] {'X', 'K', 0x01, 0x02, 0, 0};
+        int checksum = CRC16Checksum.crc16(unknownPrefix, 0, 4);
+        unknownPrefix[4] = (byte) (checksum >> 8);
+        unknownPrefix[5] = (byte) checksum;
+        for (int i = 2; i < unknownPrefix.length; i++) {
+            unknownPrefix[i] ^= unknownPrefix[i % 2];
+        }
+        assertUnwrapError(BQRContainer.UnwrapError.UNKNOWN_PREFIX, unknownPrefix);
+
+        assertUnwrapError(BQRContainer.UnwrapError.INVALID_AMS_FLAG, wrapTransactionData('X', 0));
+        assertUnwrapError(BQRContainer.UnwrapError.MISSING_DATA_BLOCK, wrapTransactionData('N'));
+        assertUnwrapError(BQRContainer.UnwrapError.MISSING_DATA_BLOCK,
+                wrapTransactionData('J', 0x01, 0x42));
+        assertUnwrapError(BQRContainer.UnwrapError.DATA_BLOCK_TOO_LONG,
+                wrapTransactionData('N', 0x02, 0x42));
+        assertUnwrapError(BQRContainer.UnwrapError.UNEXPECTED_DATA,
+                wrapTransactionData('N', 0x01, 0x42, 0x00));
+    }
+
+    private static byte[] toArray(ByteBuffer buffer) {
+        byte[] result = new byte[buffer.remaining()];
+        buffer.get(result);
+        return result;
+    }
+
+    @Test
+    public void unwrapInPlace() throws BQRContainer.InvalidBankingQrCodeException {
+        // HHDuc data block with 200 bytes and AMS data block with 97 bytes
+        byte[] payload = new byte[300];
+        for (int i = 0; i < payload.length; i++) {
+            payload[i] = (byte) (i * 7);
+        }
+        payload[0] = 'J';
+        payload[1] = (byte) 200;
+        payload[202] = (byte) 97;
+
+        for (BQRContainer.ContentType contentType : BQRContainer.ContentType.values()) {
+            byte[] bqr = BQRContainer.wrap(contentType, payload);
+            byte[] scrambled = bqr.clone();
+            byte[] expectedPayload = BQRContainer.unwrap(bqr).getPayload();
+            Assert.assertArrayEquals("input must not be modified", scrambled, bqr);
+
+            // Heap buffer with offset
+            byte[] array = new byte[bqr.length + 10];
+            System.arraycopy(bqr, 0, array, 7, bqr.length);
+            ByteBuffer heap = ByteBuffer.wrap(array, 7, bqr.length);
+
+            // Heap buffer with array offset
+            ByteBuffer slice = ByteBuffer.wrap(array.clone(), 7, bqr.length).slice();
+
+            // Direct buffer
+            ByteBuffer direct = ByteBuffer.allocateDirect(bqr.length + 3);
+            direct.position(3);
+            direct.put(bqr);
+            direct.position(3);
+
+            for (ByteBuffer buffer : new ByteBuffer[]{heap, slice, direct}) {
+                int position = buffer.position();
+                ParseResult<BQRContainer.Location, BQRContainer.UnwrapError> result
+                        = BQRContainer.tryUnwrapInPlace(buffer);
+
+                TestCase.assertTrue(result.isSuccess());
+                TestCase.assertEquals(contentType, result.getValue().getContentType());
+                TestCase.assertEquals(position, buffer.position());
+                Assert.assertArrayEquals(expectedPayload, toArray(result.getValue().getPayload()));
+            }
+        }
+    }
+
+    @Test
+    public void valueOfPrefixBytes() {
+        for (BQRContainer.ContentType contentType : BQRContainer.ContentType.values()) {
+            TestCase.assertSame(contentType,
+                    BQRContainer.ContentType.valueOfPrefixBytes(contentType.getPrefixBytes()));
+        }
+
+        try {
+            BQRContainer.ContentType.valueOfPrefixBytes(new byte[] {'D', 'D'});
+            TestCase.fail("unknown prefix must be rejected");
+        } catch (IllegalArgumentException e) {
+            // expected
+        }
+    }
+
+}
@@ -0,0 +1,95 @@
+/*
+ * Copyright (c) 2019 EFDIS AG Bankensoftware, Freising <info@efdis.de>.
+ *
+ * This file is part of the activeTAN app for Android.
+ *
+ * The activeTAN app is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * The activeTAN app is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with the activeTAN app.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package de.efdis.tangenerator.activetan;
+
+import junit.framework.TestCase;
+
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+import java.util.Random;
+
+public class CRC16ChecksumTest {
+
+    @Test
+    public void bqrExample() {
+        byte[] data = new byte[]{
+                0x44, 0x4b, 0x4e, 0x1d, (byte) 0xc8, 0x01, 0x38, 0x32, 0x31, 0x31, 0x32, 0x33, 0x34,
+                0x35, 0x4a, 0x30, 0x31, 0x32, 0x33, 0x34, 0x35, 0x36, 0x37, 0x38, 0x39, 0x46, 0x31,
+                0x30, 0x30, 0x2c, 0x30, 0x30, 0x02, 0x42, 0x35
+        };
+
+        long expectedChecksum = (data[data.length - 2] & 0xff) << 8 | (data[data.length - 1] & 0xff);
+
+        CRC16Checksum crc16 = new CRC16Checksum(0);
+        crc16.update(data, 0, data.length - 2);
+        long actualChecksum = crc16.getValue();
+
+        TestCase.assertEquals(expectedChecksum, actualChecksum);
+    }
+
+    /** Bit by bit computation without lookup tables */
+    private static int referenceCrc16(byte[] data, int off, int len) {
+        int crc = 0;
+        for (int idx = off; idx < off + len; idx++) {
+            crc ^= data[idx] & 0xff;
+            for (int bit = 0; bit < 8; bit++) {
+                if ((crc & 1) != 0) {
+                    crc = (crc >> 1) ^ 0xa001;
+                } else {
+                    crc = crc >> 1;
+                }
+            }
+        }
+        return crc;
+    }
+
+    @Test
+    public void allLengthsAndOffsets() {
+        byte[] data = new byte[64];
+        new Random(4711).nextBytes(data);
+
+        for (int off = 0; off < 9; off++) {
+            for (int len = 0; off + len <= data.length; len++) {
+                int expected = referenceCrc16(data, off, len);
+
+                TestCase.assertEquals(expected, CRC16Checksum.crc16(data, off, len));
+
+                CRC16Checksum crc16 = new CRC16Checksum(0);
+                crc16.update(data, off, len);
+                TestCase.assertEquals(expected, crc16.getValue());
+
+                crc16.reset();
+                ByteBuffer heapBuffer = ByteBuffer.wrap(data, off, len);
+                crc16.update(heapBuffer);
+                TestCase.assertEquals(expected, crc16.getValue());
+                TestCase.assertFalse(heapBuffer.hasRemaining());
+
+                crc16.reset();
+                ByteBuffer directBuffer = ByteBuffer.allocateDirect(len);
+                directBuffer.put(data, off, len).flip();
+                crc16.update(directBuffer);
+                TestCase.assertEquals(expected, crc16.getValue());
+                TestCase.assertFalse(directBuffer.hasRemaining());
+            }
+        }
+    }
+
+}
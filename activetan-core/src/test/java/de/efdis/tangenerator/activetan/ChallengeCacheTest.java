@@ -0,0 +1,195 @@
+/*
+ * Copyright (c) 2026 EFDIS AG Bankensoftware, Freising <info@efdis.de>.
+ *
+ * This file is part of the activeTAN app for Android.
+ *
+ * The activeTAN app is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * The activeTAN app is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with the activeTAN app.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package de.efdis.tangenerator.activetan;
+
+import junit.framework.TestCase;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+public class ChallengeCacheTest {
+
+    private static byte[] challenge(String iban) {
+        HHDuc hhduc = new HHDuc(VisualisationClass.CREDIT_TRANSFER_SEPA);
+        hhduc.setDataElement(DataElementType.IBAN_RECIPIENT, iban);
+        return hhduc.getBytes();
+    }
+
+    private static byte[] wrap(byte[] hhduc) {
+        byte[] payload = new byte[1 + hhduc.length];
+        payload[0] = 'N';
+        System.arraycopy(hhduc, 0, payload, 1, hhduc.length);
+        return BQRContainer.wrap(BQRContainer.ContentType.TRANSACTION_DATA, payload);
+    }
+
+    @Test
+    public void repeatedChallenge() {
+        ChallengeCache cache = new ChallengeCache(2);
+        byte[] hhduc = challenge("DE1234");
+        byte[] bqr = wrap(hhduc);
+
+        ParseResult<HHDucView, HHDuc.ParseError> parsed = null;
+        for (int i = 0; i < 3; i++) {
+            ParseResult<BQRContainer.Content, BQRContainer.UnwrapError> unwrapped
+                    = cache.unwrap(bqr.clone());
+            TestCase.assertTrue(unwrapped.isSuccess());
+            TestCase.assertEquals(BQRContainer.ContentType.TRANSACTION_DATA,
+                    unwrapped.getValue().getContentType());
+            Assert.assertArrayEquals(hhduc, unwrapped.getValue().getPayload());
+
+            // The payload is a copy, the cached challenge cannot be modified
+            unwrapped.getValue().getPayload()[2] ^= 1;
+
+            ParseResult<HHDucView, HHDuc.ParseError> result
+                    = cache.parseTransactionData(hhduc);
+            TestCase.assertTrue(result.isSuccess());
+            TestCase.assertEquals("DE1234",
+                    result.getValue().getDataElement(DataElementType.IBAN_RECIPIENT));
+            if (parsed != null) {
+                TestCase.assertSame(parsed, result);
+            }
+            parsed = result;
+        }
+    }
+
+    @Test
+    public void repeatedApiChallengeHitsCache() {
+        ChallengeCache cache = new ChallengeCache(2);
+        byte[] hhduc = challenge("DE1234");
+        byte[] bqr = wrap(hhduc);
+
+        // The banking app API loads the challenge, the user verifies the transaction details
+        byte[] firstBqr = bqr.clone();
+        byte[] payload = cache.unwrap(firstBqr).getValue().getPayload();
+        ParseResult<HHDucView, HHDuc.ParseError> parsed = cache.parseTransactionData(payload);
+
+        // The container is unscrambled in place, unless it is found in the cache
+        TestCase.assertFalse(Arrays.equals(bqr, firstBqr));
+
+        // The user leaves the TAN generation and returns, so the API loads the challenge again
+        for (int i = 0; i < 2; i++) {
+            byte[] repeatedBqr = bqr.clone();
+            payload = cache.unwrap(repeatedBqr).getValue().getPayload();
+            Assert.assertArrayEquals(bqr, repeatedBqr);
+            Assert.assertArrayEquals(hhduc, payload);
+            TestCase.assertSame(parsed, cache.parseTransactionData(payload));
+        }
+
+        // The transaction is confirmed or declined
+        cache.clear();
+        byte[] clearedBqr = bqr.clone();
+        cache.unwrap(clearedBqr);
+        TestCase.assertFalse(Arrays.equals(bqr, clearedBqr));
+    }
+
+    @Test
+    public void leastRecentlyUsedIsEvicted() {
+        ChallengeCache cache = new ChallengeCache(2);
+        byte[] first = challenge("DE1");
+        byte[] second = challenge("DE2");
+        byte[] third = challenge("DE3");
+
+        ParseResult<HHDucView, HHDuc.ParseError> parsedFirst = cache.parseTransactionData(first);
+        ParseResult<HHDucView, HHDuc.ParseError> parsedSecond = cache.parseTransactionData(second);
+        TestCase.assertSame(parsedFirst, cache.parseTransactionData(first));
+
+        cache.parseTransactionData(third);
+        TestCase.assertSame(parsedFirst, cache.parseTransactionData(first));
+        TestCase.assertNotSame(parsedSecond, cache.parseTransactionData(second));
+    }
+
+    @Test
+    public void clearForgetsChallenges() {
+        ChallengeCache cache = new ChallengeCache(2);
+        byte[] hhduc = challenge("DE1234");
+        byte[] bqr = wrap(hhduc);
+
+        ParseResult<HHDucView, HHDuc.ParseError> parsed = cache.parseTransactionData(hhduc);
+        byte[] cachedBqr = bqr.clone();
+        cache.unwrap(cachedBqr);
+
+        cache.clear();
+        Assert.assertArrayEquals(new byte[bqr.length], cachedBqr);
+        TestCase.assertNotSame(parsed, cache.parseTransactionData(hhduc));
+
+        // The parsed challenge is still usable
+        TestCase.assertEquals("DE1234",
+                parsed.getValue().getDataElement(DataElementType.IBAN_RECIPIENT));
+        Assert.assertArrayEquals(hhduc, cache.unwrap(bqr.clone()).getValue().getPayload());
+    }
+
+    @Test
+    public void sameFingerprintDifferentChallenge() {
+        ChallengeCache cache = new ChallengeCache(2);
+
+        // Search two containers with the same length and checksum
+        Map<Integer, byte[]> fingerprints = new HashMap<>();
+        byte[] first = null;
+        byte[] second = null;
+        for (int i = 100000; first == null; i++) {
+            byte[] hhduc = challenge("DE" + i);
+            byte[] previous = fingerprints.put(ChallengeCache.fingerprint(wrap(hhduc)), hhduc);
+            if (previous != null) {
+                first = previous;
+                second = hhduc;
+            }
+        }
+
+        Assert.assertArrayEquals(first, cache.unwrap(wrap(first)).getValue().getPayload());
+        Assert.assertArrayEquals(second, cache.unwrap(wrap(second)).getValue().getPayload());
+        Assert.assertArrayEquals(first, cache.unwrap(wrap(first)).getValue().getPayload());
+    }
+
+    @Test
+    public void keyMaterialAndErrorsAreNotCached() {
+        ChallengeCache cache = new ChallengeCache(2);
+        byte[] keyMaterial = {0x01, 0x02, 0x03};
+        byte[] bqr = BQRContainer.wrap(BQRContainer.ContentType.KEY_MATERIAL, keyMaterial);
+
+        for (int i = 0; i < 2; i++) {
+            BQRContainer.Content content = cache.unwrap(bqr.clone()).getValue();
+            TestCase.assertEquals(BQRContainer.ContentType.KEY_MATERIAL, content.getContentType());
+            Assert.assertArrayEquals(keyMaterial, content.getPayload());
+        }
+
+        byte[] wrongChecksum = wrap(challenge("DE1234"));
+        wrongChecksum[wrongChecksum.length - 1] ^= 1;
+        for (int i = 0; i < 2; i++) {
+            TestCase.assertEquals(BQRContainer.UnwrapError.WRONG_CHECKSUM,
+                    cache.unwrap(wrongChecksum.clone()).getError());
+        }
+    }
+
+    @Test
+    public void invalidTransactionData() {
+        ChallengeCache cache = new ChallengeCache(2);
+        byte[] hhduc = challenge("DE1234");
+        hhduc[hhduc.length - 1] ^= 1;
+
+        ParseResult<HHDucView, HHDuc.ParseError> result = cache.parseTransactionData(hhduc);
+        TestCase.assertEquals(HHDuc.ParseError.WRONG_CHECK_BYTE, result.getError());
+        TestCase.assertSame(result, cache.parseTransactionData(hhduc));
+    }
+
+}
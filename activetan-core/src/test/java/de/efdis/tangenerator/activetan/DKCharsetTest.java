@@ -22,6 +22,8 @@ package de.efdis.tangenerator.activetan;
 import org.junit.Assert;
 import org.junit.Test;
 
+import java.util.Arrays;
+
 public class DKCharsetTest {
 
     @Test
@@ -55,4 +57,27 @@ public class DKCharsetTest {
                 new String(new byte[]{0x00}, DKCharset.INSTANCE));
     }
 
+    @Test
+    public void bulkMethodsSameAsCharset() {
+        StringBuilder allCharacters = new StringBuilder();
+        for (char c = 0; c < 0xd800; c++) {
+            allCharacters.append(c);
+        }
+        String text = allCharacters.toString();
+
+        byte[] encoded = new byte[text.length() + 2];
+        Assert.assertEquals(text.length(), DKCharset.encode(text, encoded, 1));
+        Assert.assertArrayEquals(text.getBytes(DKCharset.INSTANCE),
+                Arrays.copyOfRange(encoded, 1, encoded.length - 1));
+
+        byte[] allBytes = new byte[256];
+        for (int b = 0; b < allBytes.length; b++) {
+            allBytes[b] = (byte) b;
+        }
+        Assert.assertEquals(new String(allBytes, DKCharset.INSTANCE),
+                DKCharset.decode(allBytes, 0, allBytes.length));
+        Assert.assertEquals("100,00",
+                DKCharset.decode(new byte[] {0x00, 0x31, 0x30, 0x30, 0x2c, 0x30, 0x30}, 1, 6));
+    }
+
 }
@@ -0,0 +1,101 @@
+/*
+ * Copyright (c) 2026 EFDIS AG Bankensoftware, Freising <info@efdis.de>.
+ *
+ * This file is part of the activeTAN app for Android.
+ *
+ * The activeTAN app is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * The activeTAN app is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with the activeTAN app.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package de.efdis.tangenerator.activetan;
+
+import junit.framework.TestCase;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+public class FieldEncodingTest {
+
+    @Test
+    public void bcdEncodeExample() {
+        Assert.assertArrayEquals(
+                new byte[] { 0x12, 0x34, 0x5f },
+                FieldEncoding.bcdEncode("12345"));
+
+        byte[] buffer = new byte[8];
+        TestCase.assertEquals(6, FieldEncoding.bcdEncode(123456789012L, 12, buffer, 1));
+        Assert.assertArrayEquals(
+                new byte[] { 0x00, 0x12, 0x34, 0x56, 0x78, (byte) 0x90, 0x12, 0x00 },
+                buffer);
+
+        TestCase.assertEquals(4, FieldEncoding.bcdEncode(8_001_234L, 8, buffer, 0));
+        Assert.assertArrayEquals(
+                new byte[] { 0x08, 0x00, 0x12, 0x34 },
+                Arrays.copyOf(buffer, 4));
+
+        TestCase.assertEquals(2, FieldEncoding.bcdEncode(123L, 3, buffer, 0));
+        Assert.assertArrayEquals(
+                new byte[] { 0x12, 0x3f },
+                Arrays.copyOf(buffer, 2));
+
+        ByteBuffer byteBuffer = ByteBuffer.allocate(3);
+        FieldEncoding.bcdEncode("0815", byteBuffer);
+        TestCase.assertEquals(2, byteBuffer.position());
+        TestCase.assertEquals(0x08, byteBuffer.get(0));
+        TestCase.assertEquals(0x15, byteBuffer.get(1));
+    }
+
+    @Test
+    public void bcdDecodeExample() {
+        byte[] data = new byte[] { 0x47, 0x11, 0x08, 0x15, 0x7f };
+
+        TestCase.assertEquals(471108157L, FieldEncoding.bcdDecode(data));
+        TestCase.assertEquals(1108L, FieldEncoding.bcdDecode(data, 1, 2));
+        TestCase.assertEquals(0L, FieldEncoding.bcdDecode(data, 2, 0));
+    }
+
+    @Test
+    public void illegalValues() {
+        byte[][] illegalBcd = new byte[][] {
+                { (byte) 0xa1 },
+                { 0x1a },
+                { 0x1f, 0x23 },
+        };
+        for (byte[] data : illegalBcd) {
+            try {
+                FieldEncoding.bcdDecode(data);
+                TestCase.fail("illegal value has not been detected");
+            } catch (NumberFormatException e) {
+                // expected
+            }
+        }
+
+        try {
+            FieldEncoding.bcdEncode("12-3");
+            TestCase.fail("illegal digit has not been detected");
+        } catch (NumberFormatException e) {
+            // expected
+        }
+
+        try {
+            FieldEncoding.bcdEncode(1000, 3, new byte[2], 0);
+            TestCase.fail("too many digits have not been detected");
+        } catch (IllegalArgumentException e) {
+            // expected
+        }
+    }
+
+}
@@ -0,0 +1,89 @@
+/*
+ * Copyright (c) 2026 EFDIS AG Bankensoftware, Freising <info@efdis.de>.
+ *
+ * This file is part of the activeTAN app for Android.
+ *
+ * The activeTAN app is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * The activeTAN app is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with the activeTAN app.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package de.efdis.tangenerator.activetan;
+
+import junit.framework.TestCase;
+
+import org.junit.Test;
+
+import java.util.Random;
+
+public class HHDCheckByteTest {
+
+    @Test
+    public void sameAsSeparateChecksums() {
+        Random random = new Random(4711);
+        byte[] structure = new byte[3];
+        byte[] data = new byte[40];
+
+        for (int round = 0; round < 1000; round++) {
+            random.nextBytes(structure);
+            random.nextBytes(data);
+            int len = random.nextInt(data.length);
+
+            LuhnChecksum luhn = new LuhnChecksum();
+            XorChecksum xor = new XorChecksum();
+            HHDCheckByte checkByte = new HHDCheckByte();
+
+            for (byte b : structure) {
+                xor.update(b & 0xff);
+                checkByte.updateStructure(b);
+            }
+
+            luhn.update(data[0] & 0xff);
+            xor.update(data[0] & 0xff);
+            checkByte.updateData(data[0]);
+
+            luhn.update(data, 1, len);
+            xor.update(data, 1, len);
+            checkByte.updateData(data, 1, len);
+
+            TestCase.assertEquals(
+                    (luhn.getValue() << 4) | xor.getValue(),
+                    checkByte.getValue());
+        }
+    }
+
+    @Test
+    public void wrongCheckByteIsDetected() throws HHDuc.UnsupportedDataFormatException {
+        HHDuc hhduc = new HHDuc(VisualisationClass.CREDIT_TRANSFER_SEPA);
+        hhduc.setDataElement(DataElementType.IBAN_RECIPIENT, "DE1234");
+        byte[] data = hhduc.getBytes();
+
+        HHDuc.parse(data);
+
+        data[data.length - 1] ^= 0x10;
+        try {
+            HHDuc.parse(data);
+            TestCase.fail("wrong Luhn digit has not been detected");
+        } catch (HHDuc.UnsupportedDataFormatException e) {
+            // expected
+        }
+
+        data[data.length - 1] ^= 0x11;
+        try {
+            HHDuc.parse(data);
+            TestCase.fail("wrong XOR checksum has not been detected");
+        } catch (HHDuc.UnsupportedDataFormatException e) {
+            // expected
+        }
+    }
+
+}
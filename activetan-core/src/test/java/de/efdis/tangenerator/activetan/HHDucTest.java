@@ -0,0 +1,141 @@
+/*
+ * Copyright (c) 2019 EFDIS AG Bankensoftware, Freising <info@efdis.de>.
+ *
+ * This file is part of the activeTAN app for Android.
+ *
+ * The activeTAN app is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * The activeTAN app is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with the activeTAN app.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package de.efdis.tangenerator.activetan;
+
+import junit.framework.TestCase;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+
+public class HHDucTest {
+
+    @Test
+    public void twoDataElementsExample() throws HHDuc.UnsupportedDataFormatException {
+        byte[] data;
+        {
+            HHDuc hhduc = new HHDuc(VisualisationClass.CREDIT_TRANSFER_SEPA);
+
+            hhduc.setDataElement(DataElementType.IBAN_RECIPIENT, "DE1234");
+            hhduc.setDataElement(DataElementType.AMOUNT, new BigDecimal("47.11"));
+
+            data = hhduc.getBytes();
+        }
+
+        HHDuc hhDuc = HHDuc.parse(data);
+
+        TestCase.assertEquals(VisualisationClass.CREDIT_TRANSFER_SEPA, hhDuc.getVisualisationClass());
+        TestCase.assertEquals("DE1234", hhDuc.getDataElement(DataElementType.IBAN_RECIPIENT));
+        TestCase.assertEquals("47,11", hhDuc.getDataElement(DataElementType.AMOUNT));
+    }
+
+    @Test
+    public void dataElementTypes() {
+        HHDuc hhduc = new HHDuc(VisualisationClass.COLLECTIVE_TRANSFER_SEPA,
+                DataElementType.AMOUNT, DataElementType.IBAN_OWN, DataElementType.AMOUNT);
+
+        TestCase.assertEquals(
+                Arrays.asList(DataElementType.AMOUNT, DataElementType.IBAN_OWN),
+                hhduc.getDataElementTypes());
+        TestCase.assertEquals("", hhduc.getDataElement(DataElementType.IBAN_OWN));
+        TestCase.assertNull(hhduc.getDataElement(DataElementType.QUANTITY));
+
+        try {
+            hhduc.getDataElementTypes().remove(0);
+            TestCase.fail("data element types must be read-only");
+        } catch (UnsupportedOperationException e) {
+            // expected
+        }
+    }
+
+    @Test
+    public void forId() {
+        for (VisualisationClass visualisationClass : VisualisationClass.values()) {
+            TestCase.assertSame(visualisationClass, VisualisationClass.forId(visualisationClass.getId()));
+        }
+        for (DataElementType dataElementType : DataElementType.values()) {
+            TestCase.assertSame(dataElementType, DataElementType.forId(dataElementType.getId()));
+        }
+
+        TestCase.assertNull(VisualisationClass.forId(-1));
+        TestCase.assertNull(VisualisationClass.forId(99));
+        TestCase.assertNull(DataElementType.forId(0));
+        TestCase.assertNull(DataElementType.forId(100));
+    }
+
+    /** Start code computation with string formatting */
+    private static String referenceStartCode(HHDuc hhduc, int unpredictableNumber) {
+        StringBuilder startCode = new StringBuilder();
+        int digits;
+        if (hhduc.getVisualisationClass() == null) {
+            digits = 8;
+            startCode.append("08");
+        } else {
+            digits = 12;
+            List<DataElementType> types = hhduc.getDataElementTypes();
+            if (hhduc.getVisualisationClass().getDataElements().equals(types)) {
+                startCode.append(String.format(Locale.US, "1%02d", hhduc.getVisualisationClass().getId()));
+            } else {
+                startCode.append(String.format(Locale.US, "2%02d", hhduc.getVisualisationClass().getId()));
+                for (DataElementType type : types) {
+                    startCode.append(String.format(Locale.US, "%02d", type.getId()));
+                }
+                if (types.size() < 3) {
+                    startCode.append("0");
+                }
+            }
+        }
+        String randomNumber = String.format(Locale.US, "%0" + digits + "d", unpredictableNumber);
+        startCode.append(randomNumber.substring(randomNumber.length() + startCode.length() - digits));
+        return startCode.toString();
+    }
+
+    @Test
+    public void startCode() {
+        List<HHDuc> hhducs = new ArrayList<>();
+        hhducs.add(new HHDuc());
+        for (VisualisationClass visualisationClass : VisualisationClass.values()) {
+            hhducs.add(new HHDuc(visualisationClass));
+        }
+        hhducs.add(new HHDuc(VisualisationClass.EMPTY, DataElementType.AMOUNT));
+        hhducs.add(new HHDuc(VisualisationClass.CREDIT_TRANSFER_SEPA,
+                DataElementType.NAME_RECIPIENT, DataElementType.AMOUNT));
+        hhducs.add(new HHDuc(VisualisationClass.CREDIT_TRANSFER_SEPA,
+                DataElementType.NAME_RECIPIENT, DataElementType.IBAN_RECIPIENT, DataElementType.AMOUNT));
+
+        Random random = new Random(4711);
+        for (HHDuc hhduc : hhducs) {
+            for (int unpredictableNumber : new int[] {0, 7, 123456789, Integer.MAX_VALUE, random.nextInt(Integer.MAX_VALUE)}) {
+                hhduc.setUnpredictableNumber(unpredictableNumber);
+                Assert.assertArrayEquals(
+                        FieldEncoding.bcdEncode(referenceStartCode(hhduc, unpredictableNumber)),
+                        hhduc.getStartCode());
+                TestCase.assertEquals(hhduc.getVisualisationClass() == null, hhduc.isDisplayAtc());
+            }
+        }
+    }
+
+}
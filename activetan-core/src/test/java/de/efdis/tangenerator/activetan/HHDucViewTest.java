@@ -0,0 +1,233 @@
+/*
+ * Copyright (c) 2026 EFDIS AG Bankensoftware, Freising <info@efdis.de>.
+ *
+ * This file is part of the activeTAN app for Android.
+ *
+ * The activeTAN app is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * The activeTAN app is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with the activeTAN app.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package de.efdis.tangenerator.activetan;
+
+import junit.framework.TestCase;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+
+public class HHDucViewTest {
+
+    private static final int LS_BCD = 0x80;
+    private static final int LS_ASCII = 0xc0;
+    private static final int LDE_BCD = 0x00;
+    private static final int LDE_ASCII = 0x40;
+
+    /** Data element with its LDE */
+    private static byte[] dataElement(int encoding, byte[] value) {
+        byte[] result = new byte[1 + value.length];
+        result[0] = (byte) (encoding | value.length);
+        System.arraycopy(value, 0, result, 1, value.length);
+        return result;
+    }
+
+    private static byte[] bytes(int... values) {
+        byte[] result = new byte[values.length];
+        for (int i = 0; i < values.length; i++) {
+            result[i] = (byte) values[i];
+        }
+        return result;
+    }
+
+    private static byte[] ascii(String text) {
+        return text.getBytes(StandardCharsets.ISO_8859_1);
+    }
+
+    /** Assemble a challenge with correct LC and check byte, but arbitrary content */
+    private static byte[] challenge(int ls, byte[] startCode, byte[]... dataElements) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        HHDCheckByte checkByte = new HHDCheckByte();
+
+        out.write(0);
+        out.write(ls | startCode.length);
+        checkByte.updateStructure(ls | startCode.length);
+        out.write(0x01);
+        checkByte.updateData(0x01);
+        out.write(startCode, 0, startCode.length);
+        checkByte.updateData(startCode, 0, startCode.length);
+
+        for (byte[] dataElement : dataElements) {
+            out.write(dataElement, 0, dataElement.length);
+            checkByte.updateStructure(dataElement[0]);
+            checkByte.updateData(dataElement, 1, dataElement.length - 1);
+        }
+        out.write(0);
+
+        byte[] result = out.toByteArray();
+        result[0] = (byte) (result.length - 1);
+        checkByte.updateStructure(result[0]);
+        result[result.length - 1] = (byte) checkByte.getValue();
+        return result;
+    }
+
+    @Test
+    public void sameAsParsed() throws HHDuc.UnsupportedDataFormatException, NoSuchAlgorithmException {
+        MessageDigest sha256 = MessageDigest.getInstance("SHA-256");
+
+        byte[][] challenges = {
+                // Default data elements, BCD with leading zeros
+                challenge(LS_BCD, bytes(0x10, 0x90, 0x12, 0x34, 0x56, 0x78),
+                        dataElement(LDE_ASCII, ascii("DE12500105170648489890")),
+                        dataElement(LDE_BCD, bytes(0x00, 0x00, 0x47, 0x11))),
+                // Default data elements declared explicitly, unsupported bytes, BCD overflow
+                challenge(LS_BCD, bytes(0x20, 0x93, 0x21, 0x60, 0x12, 0x34),
+                        dataElement(LDE_ASCII, bytes('D', 'E', 0x00, 0x5b, 0x7f, 0xff, '#', 0x24)),
+                        dataElement(LDE_BCD, bytes(0x99, 0x99, 0x99, 0x99, 0x99, 0x99, 0x99,
+                                0x99, 0x99, 0x99, 0x99, 0x99, 0x99, 0x99, 0x99, 0x99, 0x99, 0x99))),
+                // Custom data elements, which must be truncated
+                challenge(LS_BCD, bytes(0x28, 0x12, 0x64, 0x51, 0x21, 0x23),
+                        dataElement(LDE_ASCII, ascii("Müller & Söhne GmbH, Hauptstraße 12")),
+                        dataElement(LDE_ASCII, ascii("Max Mustermann, Freising")),
+                        dataElement(LDE_BCD, bytes(0x12, 0x34, 0x56, 0x78, 0x90, 0x12, 0x34))),
+                // Empty and missing data elements
+                challenge(LS_BCD, bytes(0x28, 0x12, 0x64, 0x51, 0x21, 0x23),
+                        dataElement(LDE_ASCII, new byte[0]),
+                        dataElement(LDE_ASCII, new byte[0]),
+                        dataElement(LDE_BCD, new byte[0])),
+                challenge(LS_BCD, bytes(0x28, 0x12, 0x64, 0x51, 0x21, 0x23),
+                        dataElement(LDE_ASCII, ascii("Händler"))),
+                challenge(LS_BCD, bytes(0x28, 0x12, 0x64, 0x51, 0x21, 0x23)),
+                // Duplicate data element
+                challenge(LS_BCD, bytes(0x28, 0x12, 0x62, 0x60, 0x12, 0x34),
+                        dataElement(LDE_ASCII, ascii("Händler"))),
+                // Static TAN with ASCII start code
+                challenge(LS_ASCII, ascii("08123456")),
+        };
+
+        for (byte[] challenge : challenges) {
+            String message = Arrays.toString(challenge);
+            HHDuc parsed = HHDuc.parse(challenge);
+            HHDucView view = HHDucView.parse(challenge);
+
+            TestCase.assertEquals(message,
+                    parsed.getVisualisationClass(), view.getVisualisationClass());
+            TestCase.assertEquals(message,
+                    parsed.getDataElementTypes(), view.getDataElementTypes());
+            TestCase.assertEquals(message, parsed.isDisplayAtc(), view.isDisplayAtc());
+            for (DataElementType type : DataElementType.values()) {
+                TestCase.assertEquals(message,
+                        parsed.getDataElement(type), view.getDataElement(type));
+            }
+
+            VisDataBuffer parsedVisData = new VisDataBuffer();
+            parsedVisData.write(parsed);
+            VisDataBuffer viewVisData = new VisDataBuffer();
+            viewVisData.write(view);
+            Assert.assertArrayEquals(message,
+                    parsedVisData.getHash(sha256), viewVisData.getHash(sha256));
+
+            Assert.assertArrayEquals(message,
+                    parsed.getStartCode(), view.toHHDuc().getStartCode());
+        }
+    }
+
+    @Test
+    public void rawBytesNotCopied() throws HHDuc.UnsupportedDataFormatException {
+        HHDuc hhduc = new HHDuc(VisualisationClass.CREDIT_TRANSFER_SEPA);
+        hhduc.setDataElement(DataElementType.IBAN_RECIPIENT, "DE1234");
+        byte[] challenge = hhduc.getBytes();
+
+        HHDucView view = HHDucView.parse(challenge);
+        TestCase.assertEquals("DE1234", view.getDataElement(DataElementType.IBAN_RECIPIENT));
+
+        // Values are decoded on request, the last byte of DE1 is followed by an empty DE2
+        challenge[challenge.length - 3] = '5';
+        TestCase.assertEquals("DE1235", view.getDataElement(DataElementType.IBAN_RECIPIENT));
+    }
+
+    @Test
+    public void invalidChallenge() {
+        HHDuc hhduc = new HHDuc(VisualisationClass.CREDIT_TRANSFER_SEPA);
+        hhduc.setDataElement(DataElementType.IBAN_RECIPIENT, "DE1234");
+        byte[] challenge = hhduc.getBytes();
+        challenge[challenge.length - 1] ^= 1;
+
+        try {
+            HHDucView.parse(challenge);
+            TestCase.fail("wrong check byte must be detected");
+        } catch (HHDuc.UnsupportedDataFormatException e) {
+            TestCase.assertEquals("Check byte is wrong", e.getMessage());
+            TestCase.assertEquals(HHDuc.ParseError.WRONG_CHECK_BYTE, e.getError());
+        }
+    }
+
+    private static void assertParseError(HHDuc.ParseError expected, byte[] challenge) {
+        ParseResult<HHDuc, HHDuc.ParseError> result = HHDuc.tryParse(challenge);
+        TestCase.assertFalse(result.isSuccess());
+        TestCase.assertEquals(expected, result.getError());
+        TestCase.assertEquals(expected, HHDucView.tryParse(challenge).getError());
+    }
+
+    @Test
+    public void parseErrors() {
+        assertParseError(HHDuc.ParseError.WRONG_LC, new byte[0]);
+        assertParseError(HHDuc.ParseError.WRONG_LC, bytes(0x05, 0x86));
+        assertParseError(HHDuc.ParseError.MISSING_LS, bytes(0x00));
+        assertParseError(HHDuc.ParseError.MISSING_CONTROL_BYTE_FLAG, bytes(0x01, 0x06));
+        assertParseError(HHDuc.ParseError.MISSING_CONTROL, bytes(0x01, 0x86));
+        assertParseError(HHDuc.ParseError.UNKNOWN_CONTROL, bytes(0x02, 0x86, 0x02));
+        assertParseError(HHDuc.ParseError.MISSING_START_CODE, bytes(0x03, 0x86, 0x01, 0x10));
+
+        byte[] startCode = bytes(0x10, 0x90, 0x12, 0x34, 0x56, 0x78);
+        byte[] wrongCheckByte = challenge(LS_BCD, startCode);
+        wrongCheckByte[wrongCheckByte.length - 1] ^= 1;
+        assertParseError(HHDuc.ParseError.WRONG_CHECK_BYTE, wrongCheckByte);
+
+        assertParseError(HHDuc.ParseError.DATA_ELEMENT_TOO_LONG, challenge(LS_BCD, startCode,
+                dataElement(LDE_BCD, new byte[19])));
+        assertParseError(HHDuc.ParseError.NON_NUMERIC_START_CODE,
+                challenge(LS_ASCII, ascii("08x23456")));
+        assertParseError(HHDuc.ParseError.NON_NUMERIC_START_CODE,
+                challenge(LS_ASCII, ascii("109123456789")));
+        assertParseError(HHDuc.ParseError.UNSUPPORTED_START_CODE,
+                challenge(LS_ASCII, ascii("-8123456")));
+        assertParseError(HHDuc.ParseError.ILLEGAL_START_CODE_FORMAT,
+                challenge(LS_BCD, bytes(0x10, 0x9a, 0x12, 0x34, 0x56, 0x78)));
+        assertParseError(HHDuc.ParseError.UNKNOWN_VISUALISATION_CLASS,
+                challenge(LS_BCD, bytes(0x10, 0x20, 0x12, 0x34, 0x56, 0x78)));
+        assertParseError(HHDuc.ParseError.UNKNOWN_DATA_ELEMENT,
+                challenge(LS_BCD, bytes(0x20, 0x99, 0x91, 0x60, 0x12, 0x34)));
+        assertParseError(HHDuc.ParseError.UNDECLARED_DATA_ELEMENT, challenge(LS_BCD,
+                bytes(0x28, 0x12, 0x60, 0x12, 0x34, 0x56),
+                dataElement(LDE_ASCII, ascii("Händler")),
+                dataElement(LDE_ASCII, ascii("Händler"))));
+        assertParseError(HHDuc.ParseError.NON_NUMERIC_BCD_DATA_ELEMENT, challenge(LS_BCD,
+                bytes(0x28, 0x12, 0x60, 0x12, 0x34, 0x56),
+                dataElement(LDE_BCD, bytes(0x12))));
+        assertParseError(HHDuc.ParseError.ILLEGAL_NUMERIC_DATA, challenge(LS_BCD, startCode,
+                dataElement(LDE_ASCII, ascii("DE1234")),
+                dataElement(LDE_BCD, bytes(0x1f, 0x23))));
+    }
+
+    @Test
+    public void asciiStartCode() throws HHDuc.UnsupportedDataFormatException {
+        HHDuc hhduc = HHDuc.parse(challenge(LS_ASCII, ascii("+0000008123456")));
+        TestCase.assertTrue(hhduc.isDisplayAtc());
+        Assert.assertArrayEquals(bytes(0x08, 0x12, 0x34, 0x56), hhduc.getStartCode());
+    }
+
+}
@@ -23,10 +23,15 @@ import junit.framework.TestCase;
 
 import org.junit.Test;
 
+import java.math.BigDecimal;
 import java.nio.ByteBuffer;
 import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
 import java.security.InvalidKeyException;
+import java.security.KeyStoreException;
+import java.security.MessageDigest;
 import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
 
 import javax.crypto.Mac;
 import javax.crypto.spec.SecretKeySpec;
@@ -80,4 +85,40 @@ public class TanGeneratorTest {
         }
     }
 
-}
\ No newline at end of file
+    @Test
+    public void testSoftwareKey() throws GeneralSecurityException {
+        byte[] secret = new byte[16];
+        for (int i = 0; i < secret.length; i++) {
+            secret[i] = (byte) i;
+        }
+
+        SoftwareBankingKeyProvider keyProvider = new SoftwareBankingKeyProvider();
+        keyProvider.putBankingKey("test", secret);
+
+        HHDuc hhduc = new HHDuc(VisualisationClass.CREDIT_TRANSFER_SEPA);
+        hhduc.setUnpredictableNumber(1234);
+        hhduc.setDataElement(DataElementType.IBAN_RECIPIENT, "DE12500105170648489890");
+        hhduc.setDataElement(DataElementType.AMOUNT, new BigDecimal("47.11"));
+
+        // Reference computation
+        VisDataBuffer visData = new VisDataBuffer();
+        visData.write(hhduc);
+        byte[] inputAAC = Arrays.copyOf(visData.getHash(MessageDigest.getInstance("SHA-256")), 33);
+        inputAAC[31] = 0x01;
+        inputAAC[32] = 0x02;
+        Mac mac = AesCbcMac.getInstance();
+        mac.init(new SecretKeySpec(secret, "AES"));
+        int expectedTan = TanGenerator.decimalization(mac.doFinal(inputAAC), 6);
+
+        TestCase.assertEquals(expectedTan, TanGenerator.generateTan(keyProvider, "test", 0x0102, hhduc));
+
+        keyProvider.removeBankingKey("test");
+        try {
+            TanGenerator.generateTan(keyProvider, "test", 0x0102, hhduc);
+            TestCase.fail("missing key has not been detected");
+        } catch (KeyStoreException e) {
+            // expected
+        }
+    }
+
+}
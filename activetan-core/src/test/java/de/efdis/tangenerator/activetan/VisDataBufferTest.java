@@ -0,0 +1,135 @@
+/*
+ * Copyright (c) 2019 EFDIS AG Bankensoftware, Freising <info@efdis.de>.
+ *
+ * This file is part of the activeTAN app for Android.
+ *
+ * The activeTAN app is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * The activeTAN app is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with the activeTAN app.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package de.efdis.tangenerator.activetan;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.math.BigDecimal;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+
+public class VisDataBufferTest {
+
+    private static void write(ByteArrayOutputStream out, int fieldSeparator, String text) {
+        out.write(fieldSeparator);
+        byte[] encoded = text.getBytes(DKCharset.INSTANCE);
+        out.write(encoded, 0, encoded.length);
+    }
+
+    private static HHDuc createSepaTransfer() {
+        HHDuc hhduc = new HHDuc(VisualisationClass.CREDIT_TRANSFER_SEPA);
+        hhduc.setUnpredictableNumber(1234);
+        hhduc.setDataElement(DataElementType.IBAN_RECIPIENT, "DE12500105170648489890");
+        hhduc.setDataElement(DataElementType.AMOUNT, new BigDecimal("47.11"));
+        return hhduc;
+    }
+
+    @Test
+    public void longDataElementExample() throws NoSuchAlgorithmException {
+        HHDuc hhduc = createSepaTransfer();
+
+        ByteArrayOutputStream expected = new ByteArrayOutputStream();
+        write(expected, 0xe1, "Start-Code:");
+        expected.write(0xe0);
+        expected.write(hhduc.getStartCode(), 0, hhduc.getStartCode().length);
+        write(expected, 0xe1, "Überweisung");
+        write(expected, 0xe1, "SEPA/EU");
+        write(expected, 0xe1, "IBAN Empf.:1");
+        write(expected, 0xe1, "DE1250010517");
+        write(expected, 0xe1, "IBAN Empf.:2");
+        write(expected, 0xe1, "0648489890");
+        write(expected, 0xe1, "Betrag:");
+        write(expected, 0xe1, "47,11");
+        expected.write(0xb0 | 10);
+
+        MessageDigest sha256 = MessageDigest.getInstance("SHA-256");
+        byte[] expectedHash = Arrays.copyOf(sha256.digest(expected.toByteArray()), 29);
+
+        VisDataBuffer buffered = new VisDataBuffer();
+        buffered.write(hhduc);
+        Assert.assertArrayEquals(expectedHash, buffered.getHash(sha256));
+
+        VisDataBuffer streamed = new VisDataBuffer(sha256);
+        streamed.write(hhduc);
+        Assert.assertArrayEquals(expectedHash, streamed.getHash());
+    }
+
+    @Test
+    public void streamedEqualsBuffered() throws NoSuchAlgorithmException {
+        MessageDigest sha256 = MessageDigest.getInstance("SHA-256");
+
+        HHDuc atc = new HHDuc();
+        atc.setUnpredictableNumber(123456);
+
+        HHDuc custom = new HHDuc(VisualisationClass.INTERNET_PAYMENT_81,
+                DataElementType.MERCHANT, DataElementType.AMOUNT);
+        custom.setUnpredictableNumber(42);
+        custom.setDataElement(DataElementType.MERCHANT, "Händler Ä£€ #1 ~ Δ");
+        custom.setDataElement(DataElementType.AMOUNT, new BigDecimal("0.99"));
+
+        for (HHDuc hhduc : new HHDuc[]{atc, custom, createSepaTransfer()}) {
+            VisDataBuffer buffered = new VisDataBuffer();
+            buffered.write(hhduc);
+            byte[] expectedHash = buffered.getHash(sha256);
+
+            VisDataBuffer streamed = new VisDataBuffer(sha256);
+            streamed.write(hhduc);
+            Assert.assertArrayEquals(expectedHash, streamed.getHash(sha256));
+        }
+    }
+
+    @Test
+    public void hashedHeaderEqualsBuffered() throws NoSuchAlgorithmException {
+        MessageDigest sha256 = MessageDigest.getInstance("SHA-256");
+
+        HHDuc atc = new HHDuc();
+        atc.setUnpredictableNumber(654321);
+
+        VisDataBuffer atcBuffered = new VisDataBuffer();
+        atcBuffered.write(atc);
+        VisDataBuffer atcStreamed = VisDataBuffer.withHashedHeader("SHA-256");
+        atcStreamed.write(atc);
+        Assert.assertArrayEquals(atcBuffered.getHash(sha256), atcStreamed.getHash());
+
+        for (VisualisationClass visualisationClass : VisualisationClass.values()) {
+            HHDuc hhduc = new HHDuc(visualisationClass);
+            hhduc.setUnpredictableNumber(visualisationClass.getId());
+            for (DataElementType dataElementType : hhduc.getDataElementTypes()) {
+                hhduc.setDataElement(dataElementType, "1234567890123");
+            }
+
+            // twice, to use the cached visualisation class lines
+            for (int i = 0; i < 2; i++) {
+                VisDataBuffer buffered = new VisDataBuffer();
+                buffered.write(hhduc);
+
+                VisDataBuffer streamed = VisDataBuffer.withHashedHeader("SHA-256");
+                streamed.write(hhduc);
+
+                Assert.assertArrayEquals(visualisationClass.name(),
+                        buffered.getHash(sha256), streamed.getHash());
+            }
+        }
+    }
+
+}
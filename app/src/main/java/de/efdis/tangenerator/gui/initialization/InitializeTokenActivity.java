@@ -61,6 +61,7 @@ import de.efdis.tangenerator.persistence.database.BankingToken;
 import de.efdis.tangenerator.persistence.database.BankingTokenRepository;
 import de.efdis.tangenerator.persistence.keystore.BankingKeyComponents;
 import de.efdis.tangenerator.persistence.keystore.BankingKeyRepository;
+import de.efdis.tangenerator.persistence.keystore.KeyStoreBankingKeyProvider;
 
 public class InitializeTokenActivity
         extends AppActivity
@@ -627,7 +628,8 @@ public class InitializeTokenActivity
     private void doStepComputeInitialTan() {
         int tan;
         try {
-            tan = TanGenerator.generateTanForInitialization(bankingToken);
+            tan = TanGenerator.generateTanForInitialization(KeyStoreBankingKeyProvider.INSTANCE,
+                    bankingToken.keyAlias, bankingToken.transactionCounter);
         } catch (GeneralSecurityException e) {
             Log.e(getClass().getSimpleName(),
                     "failed to compute initial TAN", e);
@@ -23,7 +23,6 @@ import android.net.Uri;
 import android.os.Bundle;
 import android.util.Base64;
 import android.util.Log;
-import android.util.Pair;
 import android.widget.Toast;
 
 import de.efdis.tangenerator.R;
@@ -112,15 +111,15 @@ public class InitializeTokenFromAppLinkActivity extends InitializeTokenActivity
             throw new IllegalArgumentException("wrong encoding of url parameter", e);
         }
 
-        Pair<BQRContainer.ContentType, byte[]> hhdkm;
+        BQRContainer.Content hhdkm;
         try {
             hhdkm = BQRContainer.unwrap(bqr);
         } catch (BQRContainer.InvalidBankingQrCodeException e) {
             throw new IllegalArgumentException("invalid url parameter", e);
         }
 
-        if (BQRContainer.ContentType.KEY_MATERIAL == hhdkm.first) {
-            getIntent().putExtra(EXTRA_LETTER_KEY_MATERIAL, hhdkm.second);
+        if (BQRContainer.ContentType.KEY_MATERIAL == hhdkm.getContentType()) {
+            getIntent().putExtra(EXTRA_LETTER_KEY_MATERIAL, hhdkm.getPayload());
         } else {
             throw new IllegalArgumentException("unsupported url parameter type");
         }
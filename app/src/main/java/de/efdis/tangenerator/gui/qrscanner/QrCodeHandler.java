@@ -20,15 +20,21 @@
 package de.efdis.tangenerator.gui.qrscanner;
 
 import android.util.Log;
-import android.util.Pair;
 
 import com.google.zxing.BarcodeFormat;
 import com.google.zxing.Result;
+import com.google.zxing.ResultMetadataType;
+import com.google.zxing.common.BitSource;
+import com.google.zxing.qrcode.decoder.ErrorCorrectionLevel;
 import com.google.zxing.qrcode.decoder.Mode;
+import com.google.zxing.qrcode.decoder.Version;
 
-import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
 
 import de.efdis.tangenerator.activetan.BQRContainer;
+import de.efdis.tangenerator.activetan.ChallengeCache;
+import de.efdis.tangenerator.activetan.ParseResult;
 import me.dm7.barcodescanner.zxing.ResultHandler;
 
 /** Filter and parse QR codes in Banking QR code format */
@@ -63,22 +69,26 @@ public class QrCodeHandler implements ResultHandler {
         }
 
 
-        Pair<BQRContainer.ContentType, byte[]> content;
-        try {
-            content = BQRContainer.unwrap(bqr);
-        } catch (BQRContainer.InvalidBankingQrCodeException e) {
-            Log.e(TAG, "invalid BQR format", e);
-            listener.onInvalidBankingQrCode(e.getMessage());
+        // Other QR codes are rejected frequently, which shall not cost a stack trace.
+        // The extracted content is not used otherwise and can be handed over to the cache,
+        // which skips unwrapping if the same QR code is detected again.
+        ParseResult<BQRContainer.Content, BQRContainer.UnwrapError> unwrapped
+                = ChallengeCache.getInstance().unwrap(bqr);
+        if (!unwrapped.isSuccess()) {
+            Log.e(TAG, "invalid BQR format: " + unwrapped.getError());
+            listener.onInvalidBankingQrCode(unwrapped.getError().getMessage());
             return;
         }
+        BQRContainer.Content content = unwrapped.getValue();
+        byte[] payload = content.getPayload();
 
-        switch (content.first) {
+        switch (content.getContentType()) {
             case TRANSACTION_DATA:
-                listener.onTransactionData(content.second);
+                listener.onTransactionData(payload);
                 break;
 
             case KEY_MATERIAL:
-                listener.onKeyMaterial(content.second);
+                listener.onKeyMaterial(payload);
                 break;
 
             default:
@@ -96,7 +106,7 @@ public class QrCodeHandler implements ResultHandler {
         }
 
         byte[] rawBytes = result.getRawBytes();
-        if (rawBytes.length < 2) {
+        if (rawBytes == null || rawBytes.length < 2) {
             // The raw data must be at lease 2 bytes long:
             //  - 1 half-byte for mode indicator
             //  - 1 byte for data length (2 bytes for long data)
@@ -113,29 +123,96 @@ public class QrCodeHandler implements ResultHandler {
                     "QR code is not in byte encoding mode");
         }
 
-        // The byte values are offset by 4 bits, because of the mode indicator. Undo this.
-        // We lose the last 4 bits, which might include the mandatory end of message terminator.
-        byte[] lengthContentAndPadding = new byte[rawBytes.length - 1];
-        for (int i = 0; i < lengthContentAndPadding.length; i++) {
-            int firstHalfByte = (rawBytes[i] & 0x0f) << 4;
-            int secondHalfByte = (rawBytes[i + 1] & 0xf0) >> 4;
-            lengthContentAndPadding[i] = (byte) (firstHalfByte | secondHalfByte);
+        // The decoder has already extracted the byte segment
+        byte[] byteSegment = getSingleByteSegment(result);
+        if (byteSegment != null) {
+            return byteSegment;
+        }
+
+        return readFirstByteSegment(rawBytes, getVersion(result, rawBytes.length));
+    }
+
+    /**
+     * @return
+     *      Content of the only byte segment found by the decoder, <code>null</code> if there is
+     *      not exactly one byte segment.
+     */
+    private static byte[] getSingleByteSegment(Result result) {
+        Map<ResultMetadataType, Object> metadata = result.getResultMetadata();
+        if (metadata == null) {
+            return null;
+        }
+
+        Object byteSegments = metadata.get(ResultMetadataType.BYTE_SEGMENTS);
+        if (!(byteSegments instanceof List) || ((List<?>) byteSegments).size() != 1) {
+            return null;
+        }
+
+        Object byteSegment = ((List<?>) byteSegments).get(0);
+        return byteSegment instanceof byte[] ? (byte[]) byteSegment : null;
+    }
+
+    /**
+     * Determine the QR code version, which defines the width of a segment's length field.
+     *
+     * @param numDataCodewords
+     *      Length of the raw bytes, which is unique for each version and error correction level.
+     */
+    private static Version getVersion(Result result, int numDataCodewords) throws NoBankingQrCodeException {
+        Map<ResultMetadataType, Object> metadata = result.getResultMetadata();
+        Object ecLevelName = metadata == null
+                ? null : metadata.get(ResultMetadataType.ERROR_CORRECTION_LEVEL);
+        if (ecLevelName == null) {
+            throw new NoBankingQrCodeException(
+                    "QR code version is unknown");
+        }
+
+        ErrorCorrectionLevel ecLevel;
+        try {
+            ecLevel = ErrorCorrectionLevel.valueOf(ecLevelName.toString());
+        } catch (IllegalArgumentException e) {
+            throw new NoBankingQrCodeException(
+                    "QR code error correction level is unknown");
+        }
+
+        for (int versionNumber = 1; versionNumber <= 40; versionNumber++) {
+            Version version = Version.getVersionForNumber(versionNumber);
+            int numECCodewords = version.getECBlocksForLevel(ecLevel).getTotalECCodewords();
+            if (version.getTotalCodewords() - numECCodewords == numDataCodewords) {
+                return version;
+            }
+        }
+
+        throw new NoBankingQrCodeException(
+                "QR code version is unknown");
+    }
+
+    /**
+     * Read the first segment of the raw bytes, which must be in byte encoding mode.
+     */
+    private static byte[] readFirstByteSegment(byte[] rawBytes, Version version) throws NoBankingQrCodeException {
+        BitSource bits = new BitSource(rawBytes);
+
+        // mode indicator, which has already been checked
+        bits.readBits(4);
+
+        // The width of the length field depends on the version, e. g., 8 bits for versions 1-9
+        int characterCountBits = Mode.BYTE.getCharacterCountBits(version);
+        if (bits.available() < characterCountBits) {
+            throw new NoBankingQrCodeException(
+                    "Not a valid QR code, no data has been read");
         }
+        int length = bits.readBits(characterCountBits);
 
-        int length;
-        int contentOffset;
-        if (lengthContentAndPadding.length >= 256) {
-            // For long messages the length is encoded with 2 bytes (unsigned integer)
-            length = (lengthContentAndPadding[0] & 0xff) << 8 | (lengthContentAndPadding[1] & 0xff);
-            contentOffset = 2;
-        } else {
-            // For short messages the length is encoded with 1 byte (unsigned integer)
-            length = lengthContentAndPadding[0] & 0xff;
-            contentOffset = 1;
+        if (bits.available() < 8 * length) {
+            throw new NoBankingQrCodeException(
+                    "QR code content is incomplete");
         }
 
-        byte[] content = Arrays.copyOfRange(lengthContentAndPadding,
-                contentOffset, contentOffset + length);
+        byte[] content = new byte[length];
+        for (int i = 0; i < length; i++) {
+            content[i] = (byte) bits.readBits(8);
+        }
 
         return content;
     }
@@ -39,6 +39,7 @@ import java.security.InvalidKeyException;
 import java.security.KeyStoreException;
 import java.text.DecimalFormat;
 import java.text.NumberFormat;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.HashSet;
 import java.util.Iterator;
@@ -46,8 +47,11 @@ import java.util.List;
 import java.util.Set;
 
 import de.efdis.tangenerator.R;
+import de.efdis.tangenerator.activetan.ChallengeCache;
 import de.efdis.tangenerator.activetan.DataElementType;
 import de.efdis.tangenerator.activetan.HHDuc;
+import de.efdis.tangenerator.activetan.HHDucView;
+import de.efdis.tangenerator.activetan.ParseResult;
 import de.efdis.tangenerator.activetan.TanGenerator;
 import de.efdis.tangenerator.activetan.VisualisationClass;
 import de.efdis.tangenerator.api.BankingAppApi;
@@ -56,6 +60,7 @@ import de.efdis.tangenerator.gui.common.AppActivity;
 import de.efdis.tangenerator.gui.common.ErrorDialogBuilder;
 import de.efdis.tangenerator.persistence.database.BankingToken;
 import de.efdis.tangenerator.persistence.database.BankingTokenRepository;
+import de.efdis.tangenerator.persistence.keystore.KeyStoreBankingKeyProvider;
 
 public class VerifyTransactionDetailsActivity
         extends AppActivity
@@ -185,11 +190,11 @@ public class VerifyTransactionDetailsActivity
 
         rawHHDuc = extras.getByteArray(EXTRA_RAW_HHDUC);
 
-        HHDuc hhduc;
-        try {
-            hhduc = HHDuc.parse(rawHHDuc);
-        } catch (HHDuc.UnsupportedDataFormatException e) {
-            Log.e(getClass().getSimpleName(), e.getMessage());
+        // The challenge has usually been validated already, when the QR code was scanned
+        ParseResult<HHDucView, HHDuc.ParseError> parsed
+                = ChallengeCache.getInstance().parseTransactionData(rawHHDuc);
+        if (!parsed.isSuccess()) {
+            Log.e(getClass().getSimpleName(), parsed.getError().getMessage());
 
             AlertDialog dialog;
             {
@@ -206,6 +211,7 @@ public class VerifyTransactionDetailsActivity
 
             return;
         }
+        HHDucView hhduc = parsed.getValue();
 
         displayAtc = hhduc.isDisplayAtc();
 
@@ -238,7 +244,7 @@ public class VerifyTransactionDetailsActivity
             binding.labelTransactionType.setText(getString(hhduc.getVisualisationClass()));
         }
 
-        List<DataElementType> dataElementTypes = hhduc.getDataElementTypes();
+        List<DataElementType> dataElementTypes = new ArrayList<>(hhduc.getDataElementTypes());
 
         // Do not show empty data elements
         for (Iterator<DataElementType> it = dataElementTypes.iterator(); it.hasNext(); ) {
@@ -315,6 +321,10 @@ public class VerifyTransactionDetailsActivity
     }
 
     public void onButtonCancel(View button) {
+        // The challenge has been declined and won't be repeated,
+        // so the transaction details need not be kept in memory
+        ChallengeCache.getInstance().clear();
+
         setResult(RESULT_CODE_DECLINE_TRANSACTION);
         finish();
     }
@@ -333,10 +343,15 @@ public class VerifyTransactionDetailsActivity
 
     private int computeTan(BankingToken token)
             throws HHDuc.UnsupportedDataFormatException, GeneralSecurityException {
-        HHDuc hhduc = HHDuc.parse(rawHHDuc);
+        ParseResult<HHDucView, HHDuc.ParseError> parsed
+                = ChallengeCache.getInstance().parseTransactionData(rawHHDuc);
+        if (!parsed.isSuccess()) {
+            throw new HHDuc.UnsupportedDataFormatException(parsed.getError());
+        }
 
         BankingTokenRepository.incTransactionCounter(getApplicationContext(), token);
-        return TanGenerator.generateTan(token, hhduc);
+        return TanGenerator.generateTan(KeyStoreBankingKeyProvider.INSTANCE,
+                token.keyAlias, token.transactionCounter, parsed.getValue());
     }
 
     private String computeFormattedTan(BankingToken token)
@@ -387,6 +402,10 @@ public class VerifyTransactionDetailsActivity
             return;
         }
 
+        // The challenge has been confirmed and won't be repeated,
+        // so the transaction details need not be kept in memory
+        ChallengeCache.getInstance().clear();
+
         if (BankingTokenRepository.isExhausted(bankingToken)) {
             binding.exhaustedLabel.setText(R.string.exhausted_generator_label);
             binding.exhaustedDescription.setText(R.string.exhausted_generator_description);
@@ -34,6 +34,8 @@ import javax.crypto.Cipher;
 import javax.crypto.NoSuchPaddingException;
 import javax.crypto.SecretKey;
 
+import de.efdis.tangenerator.activetan.AesCbcMac;
+import de.efdis.tangenerator.activetan.ChallengeCache;
 import de.efdis.tangenerator.persistence.keystore.AutoDestroyable;
 import de.efdis.tangenerator.persistence.keystore.BankingKeyRepository;
 
@@ -196,6 +198,8 @@ public class BankingTokenRepository {
             Log.e(BankingTokenRepository.class.getSimpleName(),
                     "unable to delete key entry", e);
         }
+        AesCbcMac.removeCachedSubKeys(token.keyAlias);
+        ChallengeCache.getInstance().clear();
 
         // Reload the token from the database to avoid concurrency problems
         token = database.bankingTokenDao().findById(token.id);
@@ -21,8 +21,10 @@ package de.efdis.tangenerator.persistence.keystore;
 
 import java.security.SecureRandom;
 
+import de.efdis.tangenerator.activetan.BankingKeyProvider;
+
 public class BankingKeyComponents {
-    public static final int BANKING_KEY_LENGTH = 16;
+    public static final int BANKING_KEY_LENGTH = BankingKeyProvider.BANKING_KEY_LENGTH;
 
     public byte[] deviceKeyComponent;
 
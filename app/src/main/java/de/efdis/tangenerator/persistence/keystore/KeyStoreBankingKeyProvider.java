@@ -0,0 +1,62 @@
+/*
+ * Copyright (c) 2026 EFDIS AG Bankensoftware, Freising <info@efdis.de>.
+ *
+ * This file is part of the activeTAN app for Android.
+ *
+ * The activeTAN app is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * The activeTAN app is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with the activeTAN app.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package de.efdis.tangenerator.persistence.keystore;
+
+import java.security.KeyStoreException;
+
+import javax.crypto.SecretKey;
+
+import de.efdis.tangenerator.activetan.AesCbcMac;
+import de.efdis.tangenerator.activetan.BankingKeyProvider;
+
+/**
+ * Banking keys from the Android key store, see {@link BankingKeyRepository}.
+ */
+public class KeyStoreBankingKeyProvider implements BankingKeyProvider {
+
+    public static final KeyStoreBankingKeyProvider INSTANCE = new KeyStoreBankingKeyProvider();
+
+    @Override
+    public BankingKey getBankingKey(final String keyAlias) throws KeyStoreException {
+        final AutoDestroyable<SecretKey> key = BankingKeyRepository.getBankingKey(keyAlias);
+        if (key == null) {
+            return null;
+        }
+
+        return new BankingKey() {
+            @Override
+            public SecretKey getKeyMaterial() {
+                return key.getKeyMaterial();
+            }
+
+            @Override
+            public AesCbcMac.KeyIdentity getKeyIdentity() {
+                // The key material of the key store cannot be accessed, but the alias is unique
+                return new AesCbcMac.KeyIdentity(keyAlias);
+            }
+
+            @Override
+            public void close() {
+                key.close();
+            }
+        };
+    }
+
+}
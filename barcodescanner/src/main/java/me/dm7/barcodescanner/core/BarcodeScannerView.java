@@ -20,6 +20,7 @@ package me.dm7.barcodescanner.core;
 import android.content.Context;
 import android.content.res.TypedArray;
 import android.graphics.Color;
+import android.graphics.Point;
 import android.graphics.Rect;
 import android.hardware.Camera;
 import android.os.Build;
@@ -45,6 +46,8 @@ public abstract class BarcodeScannerView extends FrameLayout implements Camera.P
     private CameraPreview mPreview;
     private IViewFinder mViewFinderView;
     private Rect mFramingRectInPreview;
+    private int mFramingRectPreviewWidth;
+    private int mFramingRectPreviewHeight;
     private CameraHandlerThread mCameraHandlerThread;
     private Boolean mFlashState;
     private boolean mAutofocusState = true;
@@ -215,8 +218,30 @@ public abstract class BarcodeScannerView extends FrameLayout implements Camera.P
         }
     }
 
+    /**
+     * @return
+     *      Size of the preview frames passed to {@link #onPreviewFrame(byte[], Camera)}, which
+     *      does not change during a preview session. <code>null</code> if there is no session.
+     */
+    protected Point getPreviewSize() {
+        return mPreview == null ? null : mPreview.getPreviewSize();
+    }
+
+    /**
+     * Return the buffer of a frame passed to {@link #onPreviewFrame(byte[], Camera)}, so that
+     * the camera can reuse it for another frame.
+     */
+    protected void releasePreviewBuffer(byte[] data) {
+        CameraPreview preview = mPreview;
+        if (preview != null) {
+            preview.releasePreviewBuffer(data);
+        }
+    }
+
     public synchronized Rect getFramingRectInPreview(int previewWidth, int previewHeight) {
-        if (mFramingRectInPreview == null) {
+        if (mFramingRectInPreview == null
+                || mFramingRectPreviewWidth != previewWidth
+                || mFramingRectPreviewHeight != previewHeight) {
             Rect framingRect = mViewFinderView.getFramingRect();
             int viewFinderViewWidth = mViewFinderView.getWidth();
             int viewFinderViewHeight = mViewFinderView.getHeight();
@@ -258,6 +283,8 @@ public abstract class BarcodeScannerView extends FrameLayout implements Camera.P
             rect.offset(visiblePreviewRect.left, visiblePreviewRect.top);
 
             mFramingRectInPreview = rect;
+            mFramingRectPreviewWidth = previewWidth;
+            mFramingRectPreviewHeight = previewHeight;
         }
         return mFramingRectInPreview;
     }
@@ -19,6 +19,7 @@ package me.dm7.barcodescanner.core;
 
 import android.content.Context;
 import android.content.res.Configuration;
+import android.graphics.ImageFormat;
 import android.graphics.Point;
 import android.graphics.SurfaceTexture;
 import android.hardware.Camera;
@@ -66,6 +67,13 @@ import java.util.List;
  * problems on some devices.
  *
  *  --- EFDIS AG Bankensoftware, Feb 2020
+ *
+ * Preview frames are no longer requested with setOneShotPreviewCallback(), which lets the camera
+ * allocate a new buffer of several megabytes for each frame.  Instead, a small pool of buffers is
+ * allocated for each preview session and the callback must return each buffer with
+ * releasePreviewBuffer().
+ *
+ *  --- EFDIS AG Bankensoftware, Oct 2026
  */
 public class CameraPreview extends TextureView implements TextureView.SurfaceTextureListener {
     private static final String TAG = "CameraPreview";
@@ -78,6 +86,19 @@ public class CameraPreview extends TextureView implements TextureView.SurfaceTex
     private boolean mShouldScaleToFill = true;
     private Camera.PreviewCallback mPreviewCallback;
 
+    /**
+     * Number of buffers for preview frames: one is processed, the most recent one is waiting for
+     * processing, and the next one is captured.
+     */
+    private static final int PREVIEW_BUFFER_COUNT = 3;
+
+    /** Negotiated size of the preview frames, <code>null</code> if the preview is not set up */
+    private volatile Point mPreviewSize;
+    private int mPreviewBufferSize;
+
+    /** Buffers of the current preview session, <code>null</code> if there is no session */
+    private volatile byte[][] mPreviewBuffers;
+
     public CameraPreview(Context context, CameraWrapper cameraWrapper, Camera.PreviewCallback previewCallback) {
         super(context);
         init(cameraWrapper, previewCallback);
@@ -147,7 +168,7 @@ public class CameraPreview extends TextureView implements TextureView.SurfaceTex
                 setupCameraParameters();
                 mCameraWrapper.mCamera.setPreviewTexture(getSurfaceTexture());
                 mCameraWrapper.mCamera.setDisplayOrientation(getDisplayOrientation());
-                mCameraWrapper.mCamera.setOneShotPreviewCallback(mPreviewCallback);
+                setupPreviewBuffers();
                 mCameraWrapper.mCamera.startPreview();
                 if(mAutoFocus) {
                     if (mSurfaceCreated) { // check if surface created before using autofocus
@@ -177,7 +198,8 @@ public class CameraPreview extends TextureView implements TextureView.SurfaceTex
         if(mCameraWrapper != null) {
             try {
                 mCameraWrapper.mCamera.cancelAutoFocus();
-                mCameraWrapper.mCamera.setOneShotPreviewCallback(null);
+                mPreviewBuffers = null;
+                mCameraWrapper.mCamera.setPreviewCallbackWithBuffer(null);
                 mCameraWrapper.mCamera.stopPreview();
             } catch(Exception e) {
                 Log.e(TAG, e.toString(), e);
@@ -186,6 +208,8 @@ public class CameraPreview extends TextureView implements TextureView.SurfaceTex
     }
 
     public void setupCameraParameters() {
+        mPreviewSize = null;
+
         Camera.Size optimalSize = getOptimalPreviewSize();
         if (optimalSize == null) {
             Log.e(TAG, "Cannot set up camera parameters, camera not ready");
@@ -196,10 +220,73 @@ public class CameraPreview extends TextureView implements TextureView.SurfaceTex
         parameters.setPreviewSize(optimalSize.width, optimalSize.height);
         mCameraWrapper.mCamera.setParameters(parameters);
 
+        // The preview frames keep their size and format until the preview is set up again
+        mPreviewBufferSize = optimalSize.width * optimalSize.height
+                * ImageFormat.getBitsPerPixel(parameters.getPreviewFormat()) / 8;
+        mPreviewSize = new Point(optimalSize.width, optimalSize.height);
+
         // adjustViewSize(optimalSize) is broken inside a fixed layout, thus we use this instead:
         zoomCropPreview(optimalSize);
     }
 
+    /**
+     * Allocate the buffers for a new preview session and pass them to the camera. Buffers of a
+     * previous session, which may still be queued, are discarded.
+     */
+    private void setupPreviewBuffers() {
+        Camera camera = mCameraWrapper.mCamera;
+        mPreviewBuffers = null;
+        camera.setPreviewCallbackWithBuffer(null);
+
+        if (mPreviewCallback == null || mPreviewSize == null) {
+            Log.e(TAG, "Cannot receive preview frames, camera not ready");
+            return;
+        }
+
+        byte[][] buffers = new byte[PREVIEW_BUFFER_COUNT][];
+        for (int i = 0; i < buffers.length; i++) {
+            buffers[i] = new byte[mPreviewBufferSize];
+        }
+        mPreviewBuffers = buffers;
+
+        camera.setPreviewCallbackWithBuffer(mPreviewCallback);
+        for (byte[] buffer : buffers) {
+            camera.addCallbackBuffer(buffer);
+        }
+    }
+
+    /**
+     * @return
+     *      Size of the preview frames in the current session, <code>null</code> if the preview
+     *      has not been set up.
+     */
+    public Point getPreviewSize() {
+        return mPreviewSize;
+    }
+
+    /**
+     * Return a buffer to the camera, after the preview callback has processed its frame. This may
+     * be called from any thread. Buffers of a previous preview session are discarded.
+     */
+    public void releasePreviewBuffer(byte[] buffer) {
+        byte[][] buffers = mPreviewBuffers;
+        CameraWrapper cameraWrapper = mCameraWrapper;
+        if (buffers == null || cameraWrapper == null) {
+            return;
+        }
+
+        for (byte[] sessionBuffer : buffers) {
+            if (sessionBuffer == buffer) {
+                try {
+                    cameraWrapper.mCamera.addCallbackBuffer(buffer);
+                } catch (RuntimeException e) {
+                    // It is possible that this method is invoked after camera is released.
+                    Log.e(TAG, "Cannot return preview buffer", e);
+                }
+                return;
+            }
+        }
+    }
 
     private void zoomCropPreview(Camera.Size cameraSize) {
         Point idealPreviewSize;
@@ -0,0 +1,162 @@
+/*
+ * Copyright (c) 2026 EFDIS AG Bankensoftware, Freising <info@efdis.de>.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package me.dm7.barcodescanner.zxing;
+
+/**
+ * Cheap test, whether a frame may contain a QR code, before it is binarized and decoded.
+ * <p/>
+ * Every QR code has three finder patterns. Any line through a finder pattern's center crosses
+ * dark and light runs with the ratio 1:1:3:1:1, regardless of the QR code's orientation. Thus, rows
+ * and columns a few pixels apart are searched for this ratio. Each line is binarized with its
+ * own threshold and the ratio is checked with a higher tolerance than ZXing does, since frames
+ * with a QR code must never be rejected.
+ * <p/>
+ * Sensor noise must not create runs in frames without any contrast. Each line is averaged with
+ * its neighbor and binarized with a hysteresis around the threshold, which is large compared to
+ * the noise of a preview frame, but small compared to the contrast of a QR code.
+ */
+final class FinderPatternPreFilter {
+
+    /** Lines with less contrast cannot cross a finder pattern */
+    private static final int MIN_DYNAMIC_RANGE = 32;
+
+    /** Distance from the threshold, which a pixel must exceed to start another run */
+    private static final int HYSTERESIS = MIN_DYNAMIC_RANGE / 2;
+
+    /** Smaller modules cannot be decoded anyway */
+    private static final int MIN_MODULE_SIZE = 2;
+
+    /**
+     * Distance of the scanned rows and of the scanned columns. Each line is averaged with the next
+     * one, so both must cross the center of a finder pattern, which is 3 modules wide. Thus, the
+     * distance is independent of the frame size.
+     */
+    private static final int LINE_STEP = 3 * MIN_MODULE_SIZE - 1;
+
+    private FinderPatternPreFilter() {
+    }
+
+    /**
+     * @param luminances
+     *      Luminance of the image, row by row.
+     * @return
+     *      <code>false</code>, if the image cannot contain a QR code.
+     */
+    static boolean mayContainFinderPattern(byte[] luminances, int width, int height) {
+        for (int y = LINE_STEP / 2; y < height; y += LINE_STEP) {
+            int nextRow = y + 1 < height ? width : 0;
+            if (scanLine(luminances, y * width, 1, width, nextRow)) {
+                return true;
+            }
+        }
+
+        for (int x = LINE_STEP / 2; x < width; x += LINE_STEP) {
+            int nextColumn = x + 1 < width ? 1 : 0;
+            if (scanLine(luminances, x, width, height, nextColumn)) {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    /**
+     * Search a line for 5 consecutive runs with the ratio 1:1:3:1:1. Both dark and light centers
+     * are accepted, so that inverted QR codes are not rejected.
+     *
+     * @param neighbor
+     *      Offset of the neighboring line, whose pixels are averaged with this line's pixels.
+     */
+    private static boolean scanLine(byte[] luminances, int offset, int stride, int length,
+                                    int neighbor) {
+        final int end = offset + length * stride;
+
+        int min = 0xff;
+        int max = 0;
+        for (int i = offset; i < end; i += stride) {
+            int pixel = average(luminances, i, neighbor);
+            if (pixel < min) {
+                min = pixel;
+            }
+            if (pixel > max) {
+                max = pixel;
+            }
+        }
+        if (max - min <= MIN_DYNAMIC_RANGE) {
+            return false;
+        }
+        final int threshold = (min + max) >> 1;
+
+        // Lengths of the last five runs, run4 is the current one
+        int run0 = 0;
+        int run1 = 0;
+        int run2 = 0;
+        int run3 = 0;
+        int run4 = 0;
+        int completedRuns = 0;
+        boolean dark = average(luminances, offset, neighbor) < threshold;
+
+        for (int i = offset; i < end; i += stride) {
+            int pixel = average(luminances, i, neighbor);
+            if (dark ? pixel <= threshold + HYSTERESIS : pixel >= threshold - HYSTERESIS) {
+                run4++;
+                continue;
+            }
+
+            if (completedRuns >= 4 && isFinderPatternRatio(run0, run1, run2, run3, run4)) {
+                return true;
+            }
+
+            run0 = run1;
+            run1 = run2;
+            run2 = run3;
+            run3 = run4;
+            run4 = 1;
+            dark = !dark;
+            completedRuns++;
+        }
+
+        return completedRuns >= 4 && isFinderPatternRatio(run0, run1, run2, run3, run4);
+    }
+
+    private static int average(byte[] luminances, int index, int neighbor) {
+        return ((luminances[index] & 0xff) + (luminances[index + neighbor] & 0xff)) >> 1;
+    }
+
+    /**
+     * Like ZXing's FinderPatternFinder, but the outer runs may differ by 3/4 of a module instead of
+     * 1/2. The center run has the same tolerance of 3/2 modules. Each run must be at least
+     * {@link #MIN_MODULE_SIZE} long, so single noisy pixels cannot form a pattern.
+     */
+    private static boolean isFinderPatternRatio(int run0, int run1, int run2, int run3, int run4) {
+        // 7 modules in total
+        final int total = run0 + run1 + run2 + run3 + run4;
+        if (run0 < MIN_MODULE_SIZE || run1 < MIN_MODULE_SIZE || run2 < MIN_MODULE_SIZE
+                || run3 < MIN_MODULE_SIZE || run4 < MIN_MODULE_SIZE) {
+            return false;
+        }
+
+        // |run - moduleSize| < 3/4 moduleSize, with moduleSize = total / 7
+        return 4 * Math.abs(7 * run0 - total) < 3 * total
+                && 4 * Math.abs(7 * run1 - total) < 3 * total
+                && 2 * Math.abs(7 * run2 - 3 * total) < 3 * total
+                && 4 * Math.abs(7 * run3 - total) < 3 * total
+                && 4 * Math.abs(7 * run4 - total) < 3 * total;
+    }
+
+}
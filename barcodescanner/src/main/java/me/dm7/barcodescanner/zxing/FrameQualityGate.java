@@ -0,0 +1,282 @@
+/*
+ * Copyright (c) 2026 EFDIS AG Bankensoftware, Freising <info@efdis.de>.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package me.dm7.barcodescanner.zxing;
+
+import java.util.Arrays;
+
+/**
+ * Skip preview frames, which are not worth decoding.
+ * <p/>
+ * A frame is skipped, if it is too blurry, e. g., while the auto-focus is still searching, or if
+ * it hardly differs from the last frame that has been decoded without success. Both metrics are
+ * computed on a sparse grid of the framing rectangle, which is much cheaper than decoding:
+ * <ul>
+ *     <li>Sharpness is the mean squared luminance difference of pixels two apart (gradient
+ *          energy) minus the part caused by sensor noise. The noise is estimated from the lower
+ *          quartile of the samples, which lie in flat areas even for a QR code.</li>
+ *     <li>Scene change is the fraction of cells of a coarse thumbnail, whose mean luminance
+ *          has changed by more than the noise of the cell would explain.</li>
+ * </ul>
+ * An unchanged frame is still decoded, if its sharpness has improved noticeably or if
+ * {@link #MAX_SKIPPED_FRAMES} frames in a row have been skipped as unchanged. So a QR code is
+ * never ignored for more than a few frames.
+ */
+final class FrameQualityGate {
+
+    /**
+     * Rendered, decodable QR codes have a sharpness above 30, even with little contrast and some
+     * blur. Empty frames with sensor noise up to a standard deviation of 10 stay below 20, and
+     * so do about three quarters of the strongly defocused QR codes.
+     */
+    static final float DEFAULT_MIN_SHARPNESS = 25f;
+
+    /**
+     * Rendered QR codes, which have moved by 4 pixels, change more cells than that. Sensor noise
+     * of a still picture changes less.
+     */
+    static final float DEFAULT_MIN_SCENE_CHANGE = 0.05f;
+
+    /** Maximum number of sampled rows and columns */
+    private static final int MAX_SAMPLES = 64;
+
+    /** Distance of the pixels, whose difference is the gradient */
+    private static final int GRADIENT_DISTANCE = 2;
+
+    /** Higher gradient energies are counted in the last bin of the {@link #noiseHistogram} */
+    private static final int MAX_NOISE_ENERGY = 1023;
+
+    /**
+     * With Gaussian noise, the mean gradient energy of the samples is approximately 4 times their
+     * lower quartile. Both differences of a sample contain the sample's own noise.
+     */
+    private static final int NOISE_MEAN_PER_QUARTILE = 4;
+
+    /** Rows and columns of the thumbnail for the scene change */
+    private static final int THUMBNAIL_SIZE = 16;
+
+    /**
+     * Luminance change of a cell's mean, which is not caused by noise. A cell of a large framing
+     * rectangle has 16 samples, so sensor noise with a standard deviation of 6 changes its mean
+     * by 2 on average.
+     */
+    private static final int MIN_CELL_CHANGE = 6;
+
+    /** Sharpness increase by 1/4, which is considered a change of the scene */
+    private static final int SHARPNESS_CHANGE_SHIFT = 2;
+
+    /** Unchanged frames are decoded again after skipping this many */
+    static final int MAX_SKIPPED_FRAMES = 2;
+
+    private final ScannerStatistics statistics;
+
+    private float minSharpness = DEFAULT_MIN_SHARPNESS;
+    private float minSceneChange = DEFAULT_MIN_SCENE_CHANGE;
+
+    private final int[] noiseHistogram = new int[MAX_NOISE_ENERGY + 1];
+
+    /** Sum of the sampled luminances of each cell */
+    private int[] thumbnail = new int[THUMBNAIL_SIZE * THUMBNAIL_SIZE];
+    private final int[] cellSamples = new int[THUMBNAIL_SIZE * THUMBNAIL_SIZE];
+    private int samplesX;
+    private int samplesY;
+
+    /** Thumbnail of the last decoded frame, <code>lastSamplesX == 0</code> if there is none */
+    private int[] lastThumbnail = new int[THUMBNAIL_SIZE * THUMBNAIL_SIZE];
+    private int lastSamplesX;
+    private int lastSamplesY;
+    private float lastSharpness;
+
+    /** Number of frames skipped as unchanged since the last decoded frame */
+    private int skippedFrames;
+
+    FrameQualityGate(ScannerStatistics statistics) {
+        this.statistics = statistics;
+    }
+
+    /**
+     * @param minSharpness
+     *      Minimum gradient energy above the noise of a decoded frame, zero to decode blurry
+     *      frames.
+     */
+    synchronized void setMinSharpness(float minSharpness) {
+        if (!(minSharpness >= 0f)) {
+            throw new IllegalArgumentException("Sharpness must not be negative");
+        }
+        this.minSharpness = minSharpness;
+    }
+
+    /**
+     * @param minSceneChange
+     *      Minimum fraction of changed thumbnail cells in [0, 1], zero to decode unchanged
+     *      frames.
+     */
+    synchronized void setMinSceneChange(float minSceneChange) {
+        if (!(minSceneChange >= 0f && minSceneChange <= 1f)) {
+            throw new IllegalArgumentException("Scene change must be in [0, 1]");
+        }
+        this.minSceneChange = minSceneChange;
+    }
+
+    /**
+     * Forget the last decoded frame, e. g., because the preview has been stopped.
+     */
+    synchronized void reset() {
+        lastSamplesX = 0;
+        skippedFrames = 0;
+    }
+
+    /**
+     * Decide, whether a frame shall be decoded. If so, it becomes the reference for the
+     * scene change of the next frames.
+     *
+     * @param luminances
+     *      Preview frame, which starts with the luminance of each pixel, row by row.
+     * @param dataWidth
+     *      Number of pixels per row of the frame.
+     * @param left
+     *      Left edge of the framing rectangle within the frame.
+     * @param top
+     *      Upper edge of the framing rectangle within the frame.
+     * @param width
+     *      Width of the framing rectangle.
+     * @param height
+     *      Height of the framing rectangle.
+     * @return
+     *      <code>false</code>, if the frame shall be skipped.
+     */
+    synchronized boolean accept(byte[] luminances, int dataWidth,
+                                int left, int top, int width, int height) {
+        float sharpness = measure(luminances, dataWidth, left, top, width, height);
+        statistics.onFrameMeasured(sharpness);
+
+        if (sharpness < minSharpness) {
+            statistics.onFrameBlurry();
+            return false;
+        }
+
+        if (lastSamplesX > 0
+                && skippedFrames < MAX_SKIPPED_FRAMES
+                && sharpness < lastSharpness + (lastSharpness / (1 << SHARPNESS_CHANGE_SHIFT))
+                && getSceneChange() < minSceneChange) {
+            skippedFrames++;
+            statistics.onFrameUnchanged();
+            return false;
+        }
+
+        int[] swap = lastThumbnail;
+        lastThumbnail = thumbnail;
+        thumbnail = swap;
+        lastSamplesX = samplesX;
+        lastSamplesY = samplesY;
+        lastSharpness = sharpness;
+        skippedFrames = 0;
+        return true;
+    }
+
+    /**
+     * Sample the framing rectangle on a sparse grid, fill the {@link #thumbnail} and compute the
+     * sharpness.
+     */
+    private float measure(byte[] luminances, int dataWidth,
+                          int left, int top, int width, int height) {
+        // Leave room for the right and lower neighbor of each sample
+        final int right = left + width - GRADIENT_DISTANCE;
+        final int bottom = top + height - GRADIENT_DISTANCE;
+        final int stepX = Math.max(1, (width - GRADIENT_DISTANCE + MAX_SAMPLES - 1) / MAX_SAMPLES);
+        final int stepY = Math.max(1, (height - GRADIENT_DISTANCE + MAX_SAMPLES - 1) / MAX_SAMPLES);
+        final int samplesX = right <= left ? 0 : (right - left + stepX - 1) / stepX;
+        final int samplesY = bottom <= top ? 0 : (bottom - top + stepY - 1) / stepY;
+        final int neighbor = GRADIENT_DISTANCE * dataWidth;
+
+        final int[] thumbnail = this.thumbnail;
+        final int[] noiseHistogram = this.noiseHistogram;
+        Arrays.fill(thumbnail, 0);
+        Arrays.fill(noiseHistogram, 0);
+        long gradientEnergy = 0;
+
+        for (int j = 0; j < samplesY; j++) {
+            int offset = (top + j * stepY) * dataWidth + left;
+            int cellRow = j * THUMBNAIL_SIZE / samplesY * THUMBNAIL_SIZE;
+            for (int i = 0; i < samplesX; i++, offset += stepX) {
+                int pixel = luminances[offset] & 0xff;
+                int dx = (luminances[offset + GRADIENT_DISTANCE] & 0xff) - pixel;
+                int dy = (luminances[offset + neighbor] & 0xff) - pixel;
+                int energy = dx * dx + dy * dy;
+                gradientEnergy += energy;
+                noiseHistogram[Math.min(energy, MAX_NOISE_ENERGY)]++;
+                thumbnail[cellRow + i * THUMBNAIL_SIZE / samplesX] += pixel;
+            }
+        }
+
+        this.samplesX = samplesX;
+        this.samplesY = samplesY;
+
+        int samples = samplesX * samplesY;
+        if (samples == 0) {
+            return 0f;
+        }
+
+        // Lower quartile of the gradient energy
+        int quartile = 0;
+        for (int count = noiseHistogram[0]; count < samples / 4; ) {
+            count += noiseHistogram[++quartile];
+        }
+        long noiseEnergy = (long) quartile * samples * NOISE_MEAN_PER_QUARTILE;
+        return Math.max(0f, (float) (gradientEnergy - noiseEnergy) / samples);
+    }
+
+    /**
+     * @return
+     *      Fraction of the cells of {@link #thumbnail} and {@link #lastThumbnail}, whose mean
+     *      luminance differs by more than {@link #MIN_CELL_CHANGE}.
+     */
+    private float getSceneChange() {
+        if (samplesX != lastSamplesX || samplesY != lastSamplesY) {
+            // The geometry has changed
+            return 1f;
+        }
+
+        countCellSamples();
+        int cells = 0;
+        int changedCells = 0;
+        for (int i = 0; i < thumbnail.length; i++) {
+            int count = cellSamples[i];
+            if (count > 0) {
+                cells++;
+                if (Math.abs(thumbnail[i] - lastThumbnail[i]) > MIN_CELL_CHANGE * count) {
+                    changedCells++;
+                }
+            }
+        }
+        return cells == 0 ? 0f : (float) changedCells / cells;
+    }
+
+    /**
+     * Count the samples of each cell of the thumbnail in {@link #cellSamples}.
+     */
+    private void countCellSamples() {
+        Arrays.fill(cellSamples, 0);
+        for (int j = 0; j < samplesY; j++) {
+            int cellRow = j * THUMBNAIL_SIZE / samplesY * THUMBNAIL_SIZE;
+            for (int i = 0; i < samplesX; i++) {
+                cellSamples[cellRow + i * THUMBNAIL_SIZE / samplesX]++;
+            }
+        }
+    }
+
+}
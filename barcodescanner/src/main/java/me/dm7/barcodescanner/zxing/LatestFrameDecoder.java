@@ -0,0 +1,215 @@
+/*
+ * Copyright (c) 2026 EFDIS AG Bankensoftware, Freising <info@efdis.de>.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package me.dm7.barcodescanner.zxing;
+
+import android.os.SystemClock;
+import android.util.Log;
+
+/**
+ * Decode preview frames on a dedicated thread, which always takes the most recent frame.
+ * <p/>
+ * The camera thread only hands over frames and is never blocked by the detection. If a new frame
+ * arrives while the previous one is still waiting for decoding, the older frame is dropped and its
+ * buffer returned to the camera. Thus, a QR code is decoded as soon as possible after it comes
+ * into view.
+ * <p/>
+ * The CPU time spent on detection is limited by a duty cycle and an optional maximum decode rate.
+ * This improves performance on slow devices with few cores, which in turn accelerates auto-focus.
+ */
+class LatestFrameDecoder {
+
+    private static final String TAG = LatestFrameDecoder.class.getSimpleName();
+
+    /** Decode during 2/3 of the time, i. e., idle for half the processing time */
+    static final float DEFAULT_MAX_DUTY_CYCLE = 2f / 3f;
+
+    /** Upper limit for the idle time after decoding a frame */
+    private static final long MAX_IDLE_MILLIS = 500L;
+
+    interface FrameHandler {
+        /**
+         * Search a frame for a QR code.
+         *
+         * @return
+         *      <code>true</code>, if the frame's buffer is no longer needed by the camera,
+         *      e. g., because a QR code has been detected and the preview will be stopped.
+         */
+        boolean decodeFrame(byte[] frame);
+
+        /** Return the buffer of a frame, which has been dropped or decoded, to the camera. */
+        void releaseFrame(byte[] frame);
+    }
+
+    private final FrameHandler frameHandler;
+    private final ScannerStatistics statistics;
+
+    private float maxDutyCycle = DEFAULT_MAX_DUTY_CYCLE;
+    private long minDecodeIntervalMillis = 0L;
+
+    /**
+     * Held while a frame is decoded. After {@link #quit()}, the next thread may start before the
+     * previous one has finished its last frame, but the frame handler decodes one frame at a time.
+     */
+    private final Object decodeLock = new Object();
+
+    /** Decoding thread, <code>null</code> if it has not been started or has been quit */
+    private Thread thread;
+
+    /** Most recent frame, which has not been decoded yet */
+    private byte[] pendingFrame;
+
+    /** Earliest time of the next decoding according to the CPU budget */
+    private long nextDecodeTime;
+
+    LatestFrameDecoder(FrameHandler frameHandler, ScannerStatistics statistics) {
+        this.frameHandler = frameHandler;
+        this.statistics = statistics;
+    }
+
+    /**
+     * @param maxDutyCycle
+     *      Maximum fraction of time, which the decoding thread spends on decoding.
+     */
+    synchronized void setMaxDutyCycle(float maxDutyCycle) {
+        if (!(maxDutyCycle > 0f && maxDutyCycle <= 1f)) {
+            throw new IllegalArgumentException("Duty cycle must be in (0, 1]");
+        }
+        this.maxDutyCycle = maxDutyCycle;
+    }
+
+    /**
+     * @param maxFramesPerSecond
+     *      Maximum number of decoded frames per second, zero for no limit.
+     */
+    synchronized void setMaxDecodeRate(float maxFramesPerSecond) {
+        if (!(maxFramesPerSecond >= 0f)) {
+            throw new IllegalArgumentException("Decode rate must not be negative");
+        }
+        minDecodeIntervalMillis = maxFramesPerSecond == 0f
+                ? 0L : (long) (1000f / maxFramesPerSecond);
+    }
+
+    /**
+     * Hand over a frame from the camera, the decoding thread is started if necessary.
+     */
+    synchronized void submitFrame(byte[] frame) {
+        statistics.onFrameReceived();
+
+        if (pendingFrame != null) {
+            // The frame is outdated, before it has been decoded
+            frameHandler.releaseFrame(pendingFrame);
+            statistics.onFrameDropped();
+        }
+        pendingFrame = frame;
+
+        if (thread == null) {
+            thread = new Thread(this::run, "QrCodeDecoder");
+            thread.start();
+        }
+        notifyAll();
+    }
+
+    /**
+     * Forget the pending frame, e. g., because the preview has been stopped.
+     */
+    synchronized void discardPendingFrame() {
+        releasePendingFrame();
+    }
+
+    /**
+     * Stop the decoding thread after the current frame, it is started again by the next frame.
+     */
+    synchronized void quit() {
+        releasePendingFrame();
+        thread = null;
+        notifyAll();
+
+        if (Log.isLoggable(TAG, Log.DEBUG)) {
+            Log.d(TAG, "Scanner statistics: " + statistics);
+        }
+    }
+
+    private void releasePendingFrame() {
+        if (pendingFrame != null) {
+            frameHandler.releaseFrame(pendingFrame);
+            pendingFrame = null;
+        }
+    }
+
+    private void run() {
+        final Thread currentThread = Thread.currentThread();
+
+        while (true) {
+            final byte[] frame;
+            synchronized (this) {
+                try {
+                    while (true) {
+                        if (thread != currentThread) {
+                            return;
+                        }
+
+                        long waitMillis = pendingFrame == null
+                                ? 0L : nextDecodeTime - SystemClock.elapsedRealtime();
+                        if (pendingFrame != null && waitMillis <= 0L) {
+                            break;
+                        }
+
+                        // Newer frames may replace the pending one in the meantime
+                        wait(waitMillis);
+                    }
+                } catch (InterruptedException e) {
+                    Log.e(TAG, "Thread interrupted, stopping detection", e);
+                    if (thread == currentThread) {
+                        thread = null;
+                    }
+                    return;
+                }
+
+                frame = pendingFrame;
+                pendingFrame = null;
+            }
+
+            final long startTime;
+            final long endTime;
+            synchronized (decodeLock) {
+                startTime = SystemClock.elapsedRealtime();
+                boolean consumed = false;
+                try {
+                    consumed = frameHandler.decodeFrame(frame);
+                } finally {
+                    // Also if decoding has failed, the camera needs the buffer back
+                    if (!consumed) {
+                        frameHandler.releaseFrame(frame);
+                    }
+                }
+                endTime = SystemClock.elapsedRealtime();
+            }
+
+            long processingTime = endTime - startTime;
+            statistics.onFrameDecoded(processingTime);
+
+            synchronized (this) {
+                long idleTime = Math.min(MAX_IDLE_MILLIS,
+                        (long) (processingTime / maxDutyCycle) - processingTime);
+                nextDecodeTime = Math.max(endTime + idleTime,
+                        startTime + minDecodeIntervalMillis);
+            }
+        }
+    }
+
+}
@@ -0,0 +1,368 @@
+/*
+ * Copyright (c) 2026 EFDIS AG Bankensoftware, Freising <info@efdis.de>.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package me.dm7.barcodescanner.zxing;
+
+import android.graphics.Rect;
+import android.util.Log;
+
+import com.google.zxing.BinaryBitmap;
+import com.google.zxing.ReaderException;
+import com.google.zxing.Result;
+import com.google.zxing.qrcode.QRCodeReader;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Race several detection strategies for the same preview frame on a small thread pool.
+ * <p/>
+ * Each strategy addresses another cause of failed detections, e. g., glare or a QR code which is
+ * not completely inside the view finder. One core is left for the camera and the UI, the others
+ * run as many strategies in parallel as there are threads, in the order of {@link Strategy}. The
+ * first detected QR code is returned immediately and the strategies, which have not been started
+ * yet, are skipped. With less than two cores for the detection, only the primary strategy is used
+ * on the calling thread.
+ * <p/>
+ * The luminance sources, binarizers and readers are reused for all frames with the same geometry,
+ * so that decoding allocates hardly any memory per frame.
+ */
+class ParallelQrCodeDecoder {
+
+    private static final String TAG = ParallelQrCodeDecoder.class.getSimpleName();
+
+    enum Strategy {
+        /** Local thresholds, which are suitable for most pictures */
+        HYBRID,
+
+        /** A single threshold, which is more robust against glare on parts of the picture */
+        GLOBAL_HISTOGRAM,
+
+        /** Light QR code on a dark background */
+        INVERTED,
+
+        /** Framing rectangle enlarged by {@link #ENLARGED_CROP_MARGIN} on each side */
+        ENLARGED_CROP,
+    }
+
+    private static final Strategy PRIMARY_STRATEGY = Strategy.HYBRID;
+
+    /** Fraction of the framing rectangle's size, which is added on each side */
+    private static final int ENLARGED_CROP_MARGIN = 8;
+
+    private static final int MAX_THREADS = Strategy.values().length;
+
+    /** Readers and binarizers per strategy, each strategy decodes one frame at a time */
+    private final QRCodeReader[] readers = new QRCodeReader[Strategy.values().length];
+    private final ReusableBinarizer[] binarizers = new ReusableBinarizer[Strategy.values().length];
+
+    /** Reused for all frames with the same geometry */
+    private ReusableYUVLuminanceSource source;
+
+    /** <code>null</code>, if the enlarged crop would be the same as the framing rectangle */
+    private ReusableYUVLuminanceSource enlargedSource;
+
+    /** Counted down by each strategy of the previous frame, when it has finished */
+    private CountDownLatch previousFrameStrategies;
+
+    private final ScannerStatistics statistics;
+
+    private boolean parallelDecodingEnabled = true;
+    private volatile boolean preFilterEnabled = true;
+
+    /** Thread pool for the strategies, <code>null</code> if it has not been started */
+    private ExecutorService executor;
+
+    /** Number of threads in the {@link #executor}, i. e., the strategies per frame */
+    private int numThreads;
+
+    ParallelQrCodeDecoder(ScannerStatistics statistics) {
+        this.statistics = statistics;
+        for (int i = 0; i < readers.length; i++) {
+            readers[i] = new QRCodeReader();
+        }
+    }
+
+    synchronized void setParallelDecodingEnabled(boolean enabled) {
+        parallelDecodingEnabled = enabled;
+        if (!enabled) {
+            shutdown();
+        }
+    }
+
+    /**
+     * @param enabled
+     *      Skip frames without a finder pattern, see {@link FinderPatternPreFilter}.
+     */
+    void setPreFilterEnabled(boolean enabled) {
+        preFilterEnabled = enabled;
+    }
+
+    /**
+     * @return
+     *      <code>null</code>, if only the primary strategy shall be used.
+     */
+    private synchronized ExecutorService getExecutor() {
+        if (executor == null && parallelDecodingEnabled) {
+            numThreads = Math.min(MAX_THREADS,
+                    Runtime.getRuntime().availableProcessors() - 1);
+            if (numThreads > 1) {
+                AtomicInteger threadNumber = new AtomicInteger();
+                executor = Executors.newFixedThreadPool(numThreads, runnable -> {
+                    Thread thread = new Thread(runnable,
+                            "QrCodeDecoder-" + threadNumber.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+            }
+        }
+        return executor;
+    }
+
+    /**
+     * Stop the thread pool, it is started again for the next frame.
+     */
+    synchronized void shutdown() {
+        if (executor != null) {
+            List<Runnable> cancelled = executor.shutdownNow();
+            CountDownLatch strategies = previousFrameStrategies;
+            for (Runnable runnable : cancelled) {
+                // Complete the futures of strategies, which will never run, for the decoding thread
+                if (runnable instanceof Future) {
+                    ((Future<?>) runnable).cancel(false);
+                }
+
+                // These strategies cannot count down themselves
+                if (strategies != null) {
+                    strategies.countDown();
+                }
+            }
+            executor = null;
+        }
+    }
+
+    /**
+     * Search the framing rectangle of a preview frame for a QR code.
+     * <p/>
+     * If no QR code has been found, all strategies have finished and the frame's buffer can be
+     * reused. Otherwise, strategies that are still running may read the buffer for a while.
+     *
+     * @return
+     *      <code>null</code>, if no QR code has been found.
+     */
+    Result decode(byte[] data, int width, int height, Rect rect) {
+        // The sources and binarizers must no longer be used by the previous frame
+        try {
+            awaitPreviousFrame();
+        } catch (InterruptedException e) {
+            Log.e(TAG, "Thread interrupted, stopping detection", e);
+            Thread.currentThread().interrupt();
+            return null;
+        }
+
+        prepareSources(width, height, rect);
+        source.setFrame(data);
+        if (enlargedSource != null) {
+            enlargedSource.setFrame(data);
+        }
+
+        ExecutorService executor = getExecutor();
+
+        // Without a thread pool, only the primary strategy is used
+        int numStrategies = 0;
+        boolean decodeEnlargedCrop = false;
+        if (executor != null) {
+            for (Strategy strategy : Strategy.values()) {
+                if (numStrategies < numThreads && isApplicable(strategy)) {
+                    decodeEnlargedCrop |= strategy == Strategy.ENLARGED_CROP;
+                    numStrategies++;
+                }
+            }
+        }
+
+        if (preFilterEnabled) {
+            // The enlarged crop contains the framing rectangle
+            ReusableYUVLuminanceSource filteredSource
+                    = decodeEnlargedCrop ? enlargedSource : source;
+            if (!FinderPatternPreFilter.mayContainFinderPattern(filteredSource.getMatrix(),
+                    filteredSource.getWidth(), filteredSource.getHeight())) {
+                statistics.onFrameRejected();
+                return null;
+            }
+        }
+
+        if (executor == null) {
+            return decode(PRIMARY_STRATEGY);
+        }
+
+        final CountDownLatch strategies = new CountDownLatch(numStrategies);
+        final AtomicBoolean detected = new AtomicBoolean();
+        synchronized (this) {
+            previousFrameStrategies = strategies;
+        }
+
+        CompletionService<Result> completionService = new ExecutorCompletionService<>(executor);
+        int numSubmitted = 0;
+        try {
+            for (final Strategy strategy : Strategy.values()) {
+                if (numSubmitted < numStrategies && isApplicable(strategy)) {
+                    // Prepared by this thread, before the strategy is submitted
+                    getBinarizer(strategy);
+                    completionService.submit(() -> {
+                        try {
+                            // Strategies are skipped, once a QR code has been found
+                            return detected.get() ? null : decode(strategy);
+                        } finally {
+                            strategies.countDown();
+                        }
+                    });
+                    numSubmitted++;
+                }
+            }
+        } catch (RejectedExecutionException e) {
+            // The thread pool has been shut down concurrently
+            for (int i = numSubmitted; i < numStrategies; i++) {
+                strategies.countDown();
+            }
+        }
+
+        try {
+            // Return the first QR code, otherwise wait for all strategies to release the frame
+            for (int i = 0; i < numSubmitted; i++) {
+                Result result;
+                try {
+                    result = completionService.take().get();
+                } catch (CancellationException e) {
+                    // The thread pool has been shut down
+                    result = null;
+                } catch (ExecutionException e) {
+                    Log.e(TAG, "Detection strategy failed", e);
+                    result = null;
+                }
+
+                if (result != null) {
+                    return result;
+                }
+            }
+            return null;
+        } catch (InterruptedException e) {
+            Log.e(TAG, "Thread interrupted, stopping detection", e);
+            Thread.currentThread().interrupt();
+            return null;
+        } finally {
+            detected.set(true);
+        }
+    }
+
+    private boolean isApplicable(Strategy strategy) {
+        return strategy != Strategy.ENLARGED_CROP || enlargedSource != null;
+    }
+
+    private void awaitPreviousFrame() throws InterruptedException {
+        CountDownLatch strategies;
+        synchronized (this) {
+            strategies = previousFrameStrategies;
+        }
+
+        if (strategies != null) {
+            strategies.await();
+        }
+    }
+
+    /**
+     * Create new sources and binarizers, if the geometry of the frame has changed.
+     */
+    private void prepareSources(int width, int height, Rect rect) {
+        if (source != null && source.hasGeometry(width, height, rect)) {
+            return;
+        }
+
+        source = new ReusableYUVLuminanceSource(width, height, rect);
+
+        Rect enlargedRect = enlarge(rect, width, height);
+        enlargedSource = enlargedRect.equals(rect)
+                ? null
+                : new ReusableYUVLuminanceSource(width, height, enlargedRect);
+
+        Arrays.fill(binarizers, null);
+    }
+
+    private ReusableBinarizer getBinarizer(Strategy strategy) {
+        ReusableBinarizer binarizer = binarizers[strategy.ordinal()];
+        if (binarizer == null) {
+            switch (strategy) {
+                case GLOBAL_HISTOGRAM:
+                    binarizer = new ReusableBinarizer(source,
+                            ReusableBinarizer.Method.GLOBAL_THRESHOLD, false);
+                    break;
+
+                case INVERTED:
+                    binarizer = new ReusableBinarizer(source,
+                            ReusableBinarizer.Method.LOCAL_THRESHOLDS, true);
+                    break;
+
+                case ENLARGED_CROP:
+                    binarizer = new ReusableBinarizer(enlargedSource,
+                            ReusableBinarizer.Method.LOCAL_THRESHOLDS, false);
+                    break;
+
+                default:
+                    binarizer = new ReusableBinarizer(source,
+                            ReusableBinarizer.Method.LOCAL_THRESHOLDS, false);
+                    break;
+            }
+            binarizers[strategy.ordinal()] = binarizer;
+        }
+        return binarizer;
+    }
+
+    private Result decode(Strategy strategy) {
+        QRCodeReader reader = readers[strategy.ordinal()];
+        try {
+            Result result = reader.decode(new BinaryBitmap(getBinarizer(strategy)));
+            Log.d(TAG, "QR code detected with strategy " + strategy);
+            return result;
+        } catch (ReaderException re) {
+            // no QR code found
+            return null;
+        } finally {
+            reader.reset();
+        }
+    }
+
+    private static Rect enlarge(Rect rect, int width, int height) {
+        int marginX = rect.width() / ENLARGED_CROP_MARGIN;
+        int marginY = rect.height() / ENLARGED_CROP_MARGIN;
+        return new Rect(
+                Math.max(0, rect.left - marginX),
+                Math.max(0, rect.top - marginY),
+                Math.min(width, rect.right + marginX),
+                Math.min(height, rect.bottom + marginY));
+    }
+
+}
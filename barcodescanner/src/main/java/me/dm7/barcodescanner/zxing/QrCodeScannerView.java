@@ -17,6 +17,7 @@
 package me.dm7.barcodescanner.zxing;
 
 import android.content.Context;
+import android.graphics.Point;
 import android.graphics.Rect;
 import android.hardware.Camera;
 import android.os.Handler;
@@ -24,12 +25,7 @@ import android.os.Looper;
 import android.util.AttributeSet;
 import android.util.Log;
 
-import com.google.zxing.BinaryBitmap;
-import com.google.zxing.PlanarYUVLuminanceSource;
-import com.google.zxing.ReaderException;
 import com.google.zxing.Result;
-import com.google.zxing.common.HybridBinarizer;
-import com.google.zxing.qrcode.QRCodeReader;
 
 import me.dm7.barcodescanner.core.BarcodeScannerView;
 
@@ -39,25 +35,47 @@ import me.dm7.barcodescanner.core.BarcodeScannerView;
  *
  * <ul>
  *     <li>Only QR codes can be detected</li>
- *     <li>Inverted QR codes are not supported (reduces detection time by 50%)</li>
+ *     <li>Inverted QR codes and other detection strategies are only tried in parallel on
+ *          multi-core devices (reduces detection time by 50% on single-core devices)</li>
  *     <li>Image data is not rotated before detection,
  *          since QR codes can be detected in any orientation (reduces detection time)</li>
  *     <li>Do not spend 100% cpu time of the detection thread on QR code detection. This improves
  *          performance on slow devices with few cores, which in turn accelerates auto-focus and
  *          thus detection speed. On fast devices, this barely has any impact.</li>
+ *     <li>Frames are decoded on a dedicated thread, which always takes the most recent frame
+ *          and drops outdated ones (reduces time to detection)</li>
+ *     <li>Blurry frames and frames without a scene change since the last decoding attempt
+ *          are skipped (reduces processing time while auto-focus is searching)</li>
+ *     <li>Frames without a finder pattern are rejected before binarization
+ *          (reduces processing time for frames without a QR code)</li>
+ *     <li>Preview frames are received in a pool of reused buffers, the preview size is not
+ *          queried for each frame, and the binarizers keep their arrays across frames
+ *          (reduces garbage collection)</li>
  * </ul>
  */
 public class QrCodeScannerView extends BarcodeScannerView {
-    private ResultHandler resultHandler;
-    private final QRCodeReader qrCodeReader;
+    private volatile ResultHandler resultHandler;
+    private final ScannerStatistics statistics = new ScannerStatistics();
+    private final FrameQualityGate qualityGate = new FrameQualityGate(statistics);
+    private final ParallelQrCodeDecoder decoder = new ParallelQrCodeDecoder(statistics);
+    private final LatestFrameDecoder frameDecoder = new LatestFrameDecoder(
+            new LatestFrameDecoder.FrameHandler() {
+                @Override
+                public boolean decodeFrame(byte[] frame) {
+                    return detectFast(frame);
+                }
+
+                @Override
+                public void releaseFrame(byte[] frame) {
+                    releasePreviewBuffer(frame);
+                }
+            }, statistics);
 
     public QrCodeScannerView(Context context, AttributeSet attributeSet) {
         super(context, attributeSet);
 
         setLaserEnabled(false);
         setSquareViewFinder(true);
-
-        qrCodeReader = new QRCodeReader();
     }
 
     public QrCodeScannerView(Context context) {
@@ -65,8 +83,6 @@ public class QrCodeScannerView extends BarcodeScannerView {
 
         setLaserEnabled(false);
         setSquareViewFinder(true);
-
-        qrCodeReader = new QRCodeReader();
     }
 
 
@@ -83,91 +99,131 @@ public class QrCodeScannerView extends BarcodeScannerView {
         resumeCameraPreview();
     }
 
+    public ScannerStatistics getStatistics() {
+        return statistics;
+    }
+
+    /**
+     * Limit the CPU time spent on detection.
+     *
+     * @param maxDutyCycle
+     *      Maximum fraction of time, which the detection thread spends on decoding frames.
+     *      The default of 2/3 keeps the detection thread idle for half the processing time.
+     */
+    public void setMaxDutyCycle(float maxDutyCycle) {
+        frameDecoder.setMaxDutyCycle(maxDutyCycle);
+    }
+
+    /**
+     * Limit the CPU time spent on detection.
+     *
+     * @param maxFramesPerSecond
+     *      Maximum number of frames to decode per second, zero for no limit (default).
+     */
+    public void setMaxDecodeRate(float maxFramesPerSecond) {
+        frameDecoder.setMaxDecodeRate(maxFramesPerSecond);
+    }
+
+    /**
+     * @param enabled
+     *      Try other detection strategies in parallel on multi-core devices (default), e. g.,
+     *      for inverted QR codes or against glare. Otherwise, each frame is decoded with a
+     *      single strategy on one core.
+     */
+    public void setParallelDecodingEnabled(boolean enabled) {
+        decoder.setParallelDecodingEnabled(enabled);
+    }
+
+    /**
+     * @param enabled
+     *      Skip frames without a QR code finder pattern before binarization (default). This saves
+     *      most of the processing time for frames without a QR code.
+     */
+    public void setFinderPatternPreFilterEnabled(boolean enabled) {
+        decoder.setPreFilterEnabled(enabled);
+    }
+
+    /**
+     * @param minSharpness
+     *      Skip frames with a lower mean squared luminance difference of pixels two apart, after
+     *      subtracting the sensor noise, see {@link ScannerStatistics#getLastSharpness()}. The
+     *      default of 25 is above the noise of empty frames. Zero to decode blurry frames.
+     */
+    public void setMinSharpness(float minSharpness) {
+        qualityGate.setMinSharpness(minSharpness);
+    }
+
+    /**
+     * @param minSceneChange
+     *      Skip up to two frames, if less than this fraction of a coarse 16x16 thumbnail has
+     *      changed its brightness since the last decoded frame. Zero to decode unchanged frames.
+     */
+    public void setMinSceneChange(float minSceneChange) {
+        qualityGate.setMinSceneChange(minSceneChange);
+    }
+
     @Override
     public void onPreviewFrame(byte[] data, final Camera camera) {
-        long startTime = System.currentTimeMillis();
-        boolean detected = detectFast(data, camera);
-        long endTime = System.currentTimeMillis();
-
-        if (!detected) {
-            long frameProcessingTime = endTime - startTime;
-
-            // Sleep after unsuccessful detection to reduce cpu load
-            // from 100% to approx. 66%.
-            long idleTime = Math.max(0L, Math.min(500L, frameProcessingTime / 2));
-
-            try {
-                Log.v(getClass().getSimpleName(),
-                        "Detection thread idle for " + idleTime + "ms ...");
-                Thread.sleep(idleTime);
-            } catch (InterruptedException e) {
-                Log.e(getClass().getSimpleName(),
-                        "Thread interrupted, stopping detection", e);
-                stopCameraPreview();
-                Thread.currentThread().interrupt();
-                return;
-            }
-
-            // Request the next picture for detection
-            if (getResultHandler() != null) {
-                try {
-                    camera.setOneShotPreviewCallback(this);
-                } catch (RuntimeException e) {
-                    // It is possible that this method is invoked after camera is released.
-                    Log.e(getClass().getSimpleName(),
-                            "Cannot continue detection", e);
-                }
-            }
+        if (getResultHandler() == null) {
+            // The camera has only a few buffers, each one must be returned
+            releasePreviewBuffer(data);
+            return;
         }
+
+        // Never block the camera thread, the detection thread takes the most recent frame
+        frameDecoder.submitFrame(data);
+    }
+
+    @Override
+    public void stopCameraPreview() {
+        frameDecoder.discardPendingFrame();
+        qualityGate.reset();
+        super.stopCameraPreview();
+    }
+
+    @Override
+    public void stopCamera() {
+        frameDecoder.quit();
+        decoder.shutdown();
+        super.stopCamera();
     }
 
-    private boolean detectFast(byte[] data, Camera camera) {
+    private boolean detectFast(byte[] data) {
         if (getResultHandler() == null) {
             return false;
         }
 
-        int width;
-        int height;
-        try {
-            Camera.Parameters parameters = camera.getParameters();
-            Camera.Size size = parameters.getPreviewSize();
-            width = size.width;
-            height = size.height;
-        } catch (RuntimeException e) {
-            // It is possible that this method is invoked after camera is released.
-            Log.e(getClass().getSimpleName(),
-                    "Cannot access camera", e);
+        // The size has been negotiated when the preview was set up,
+        // which avoids querying the camera parameters for each frame.
+        Point previewSize = getPreviewSize();
+        if (previewSize == null) {
             return false;
         }
+        int width = previewSize.x;
+        int height = previewSize.y;
 
-        PlanarYUVLuminanceSource source;
+        final Result detectedResult;
         try {
             Rect rect = getFramingRectInPreview(width, height);
             if (rect == null) {
                 return false;
             }
 
-            source = new PlanarYUVLuminanceSource(data,
-                    width, height,
-                    rect.left, rect.top,
-                    rect.width(), rect.height(),
-                    false);
+            if (!qualityGate.accept(data, width,
+                    rect.left, rect.top, rect.width(), rect.height())) {
+                return false;
+            }
+
+            detectedResult = decoder.decode(data, width, height, rect);
         } catch (RuntimeException e) {
             Log.e(getClass().getSimpleName(),
-                    "Cannot crop camera picture", e);
+                    "Cannot decode camera picture", e);
             return false;
         }
 
-        final Result detectedResult;
-        try {
-            BinaryBitmap bitmap = new BinaryBitmap(new HybridBinarizer(source));
-
-            detectedResult = qrCodeReader.decode(bitmap);
-        } catch (ReaderException re) {
+        if (detectedResult == null) {
             // no QR code found
             return false;
-        } finally {
-            qrCodeReader.reset();
         }
 
         Handler handler = new Handler(Looper.getMainLooper());
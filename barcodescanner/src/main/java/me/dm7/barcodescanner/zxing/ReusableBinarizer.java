@@ -0,0 +1,311 @@
+/*
+ * Copyright (C) 2009 ZXing authors
+ * Copyright (c) 2026 EFDIS AG Bankensoftware, Freising <info@efdis.de>.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package me.dm7.barcodescanner.zxing;
+
+import com.google.zxing.Binarizer;
+import com.google.zxing.LuminanceSource;
+import com.google.zxing.NotFoundException;
+import com.google.zxing.common.BitArray;
+import com.google.zxing.common.BitMatrix;
+import com.google.zxing.common.GlobalHistogramBinarizer;
+
+/*
+ * The algorithms in this file have been taken from ZXing's HybridBinarizer and
+ * GlobalHistogramBinarizer.  In contrast to the original classes, the arrays and the resulting
+ * BitMatrix are kept and reset in place for each frame, and the luminance can be inverted without
+ * an InvertedLuminanceSource, which would copy the image.
+ *
+ *  --- EFDIS AG Bankensoftware, Oct 2026
+ */
+
+/**
+ * Binarizer for all frames with the same geometry, which allocates no memory per frame.
+ * <p/>
+ * The instance must not be used for several frames in parallel. The matrix returned by
+ * {@link #getBlackMatrix()} is only valid until it is called again.
+ */
+final class ReusableBinarizer extends Binarizer {
+
+    enum Method {
+        /** Thresholds for blocks of 8x8 pixels, like ZXing's HybridBinarizer */
+        LOCAL_THRESHOLDS,
+
+        /** One threshold for the whole image, like ZXing's GlobalHistogramBinarizer */
+        GLOBAL_THRESHOLD,
+    }
+
+    // Local thresholds
+    private static final int BLOCK_SIZE_POWER = 3;
+    private static final int BLOCK_SIZE = 1 << BLOCK_SIZE_POWER;
+    private static final int MINIMUM_DIMENSION = BLOCK_SIZE * 5;
+    private static final int MIN_DYNAMIC_RANGE = 24;
+
+    // Global threshold
+    private static final int LUMINANCE_BITS = 5;
+    private static final int LUMINANCE_SHIFT = 8 - LUMINANCE_BITS;
+    private static final int LUMINANCE_BUCKETS = 1 << LUMINANCE_BITS;
+
+    private final Method method;
+
+    /** XOR mask for each pixel's luminance: 0xff for inverted luminance */
+    private final int invertMask;
+
+    private final int subWidth;
+    private final int subHeight;
+    private final int[][] blackPoints;
+    private final int[] buckets;
+    private final BitMatrix matrix;
+
+    ReusableBinarizer(LuminanceSource source, Method method, boolean inverted) {
+        super(source);
+
+        this.method = method;
+        this.invertMask = inverted ? 0xff : 0x00;
+
+        int width = source.getWidth();
+        int height = source.getHeight();
+        subWidth = (width + BLOCK_SIZE - 1) >> BLOCK_SIZE_POWER;
+        subHeight = (height + BLOCK_SIZE - 1) >> BLOCK_SIZE_POWER;
+
+        if (method == Method.LOCAL_THRESHOLDS
+                && width >= MINIMUM_DIMENSION && height >= MINIMUM_DIMENSION) {
+            blackPoints = new int[subHeight][subWidth];
+            buckets = null;
+        } else {
+            // Small images are always binarized with a global threshold
+            blackPoints = null;
+            buckets = new int[LUMINANCE_BUCKETS];
+        }
+        matrix = new BitMatrix(width, height);
+    }
+
+    @Override
+    public BitArray getBlackRow(int y, BitArray row) throws NotFoundException {
+        // Only used by 1D barcode readers, which do not benefit from reuse
+        LuminanceSource source = getLuminanceSource();
+        return new GlobalHistogramBinarizer(invertMask == 0 ? source : source.invert())
+                .getBlackRow(y, row);
+    }
+
+    @Override
+    public BitMatrix getBlackMatrix() throws NotFoundException {
+        byte[] luminances = getLuminanceSource().getMatrix();
+        int width = getWidth();
+        int height = getHeight();
+
+        matrix.clear();
+        if (blackPoints != null) {
+            calculateBlackPoints(luminances, width, height);
+            calculateThresholdForBlock(luminances, width, height);
+        } else {
+            int blackPoint = estimateBlackPoint(luminances, width, height);
+            for (int y = 0; y < height; y++) {
+                int offset = y * width;
+                for (int x = 0; x < width; x++) {
+                    int pixel = (luminances[offset + x] & 0xff) ^ invertMask;
+                    if (pixel < blackPoint) {
+                        matrix.set(x, y);
+                    }
+                }
+            }
+        }
+
+        return matrix;
+    }
+
+    @Override
+    public Binarizer createBinarizer(LuminanceSource source) {
+        return new ReusableBinarizer(source, method, invertMask != 0);
+    }
+
+    /**
+     * Calculate a single black point for each block of pixels.
+     */
+    private void calculateBlackPoints(byte[] luminances, int width, int height) {
+        final int maxYOffset = height - BLOCK_SIZE;
+        final int maxXOffset = width - BLOCK_SIZE;
+        for (int y = 0; y < subHeight; y++) {
+            int yoffset = Math.min(y << BLOCK_SIZE_POWER, maxYOffset);
+            for (int x = 0; x < subWidth; x++) {
+                int xoffset = Math.min(x << BLOCK_SIZE_POWER, maxXOffset);
+                int sum = 0;
+                int min = 0xff;
+                int max = 0;
+                for (int yy = 0, offset = yoffset * width + xoffset; yy < BLOCK_SIZE; yy++, offset += width) {
+                    for (int xx = 0; xx < BLOCK_SIZE; xx++) {
+                        int pixel = (luminances[offset + xx] & 0xff) ^ invertMask;
+                        sum += pixel;
+                        if (pixel < min) {
+                            min = pixel;
+                        }
+                        if (pixel > max) {
+                            max = pixel;
+                        }
+                    }
+                    // short-circuit min/max tests once dynamic range is met
+                    if (max - min > MIN_DYNAMIC_RANGE) {
+                        // finish the rest of the rows quickly
+                        for (yy++, offset += width; yy < BLOCK_SIZE; yy++, offset += width) {
+                            for (int xx = 0; xx < BLOCK_SIZE; xx++) {
+                                sum += (luminances[offset + xx] & 0xff) ^ invertMask;
+                            }
+                        }
+                    }
+                }
+
+                // The default estimate is the average of the values in the block.
+                int average = sum >> (BLOCK_SIZE_POWER * 2);
+                if (max - min <= MIN_DYNAMIC_RANGE) {
+                    // If variation within the block is low, assume this is a block with only
+                    // light or only dark pixels. Since no estimate for the level of dark pixels
+                    // exists locally, use half the min for the block.
+                    average = min / 2;
+
+                    if (y > 0 && x > 0) {
+                        // Dark barcode symbology is always surrounded by some amount of light
+                        // background, so the neighbors' black points are used for the interior.
+                        int averageNeighborBlackPoint = (blackPoints[y - 1][x]
+                                + (2 * blackPoints[y][x - 1])
+                                + blackPoints[y - 1][x - 1]) / 4;
+                        if (min < averageNeighborBlackPoint) {
+                            average = averageNeighborBlackPoint;
+                        }
+                    }
+                }
+                blackPoints[y][x] = average;
+            }
+        }
+    }
+
+    /**
+     * Apply the average black point of the surrounding 5x5 blocks to each block of pixels.
+     */
+    private void calculateThresholdForBlock(byte[] luminances, int width, int height) {
+        final int maxYOffset = height - BLOCK_SIZE;
+        final int maxXOffset = width - BLOCK_SIZE;
+        for (int y = 0; y < subHeight; y++) {
+            int yoffset = Math.min(y << BLOCK_SIZE_POWER, maxYOffset);
+            int top = cap(y, subHeight - 3);
+            for (int x = 0; x < subWidth; x++) {
+                int xoffset = Math.min(x << BLOCK_SIZE_POWER, maxXOffset);
+                int left = cap(x, subWidth - 3);
+                int sum = 0;
+                for (int z = -2; z <= 2; z++) {
+                    int[] blackRow = blackPoints[top + z];
+                    sum += blackRow[left - 2] + blackRow[left - 1] + blackRow[left]
+                            + blackRow[left + 1] + blackRow[left + 2];
+                }
+                int average = sum / 25;
+                thresholdBlock(luminances, xoffset, yoffset, average, width);
+            }
+        }
+    }
+
+    private static int cap(int value, int max) {
+        return value < 2 ? 2 : Math.min(value, max);
+    }
+
+    private void thresholdBlock(byte[] luminances, int xoffset, int yoffset, int threshold, int stride) {
+        for (int y = 0, offset = yoffset * stride + xoffset; y < BLOCK_SIZE; y++, offset += stride) {
+            for (int x = 0; x < BLOCK_SIZE; x++) {
+                // Comparison needs to be <= so that black == 0 pixels are black
+                // even if the threshold is 0.
+                if (((luminances[offset + x] & 0xff) ^ invertMask) <= threshold) {
+                    matrix.set(xoffset + x, yoffset + y);
+                }
+            }
+        }
+    }
+
+    /**
+     * Estimate a global black point from the histogram of four rows.
+     *
+     * @throws NotFoundException
+     *      If the contrast is too low for a meaningful black point.
+     */
+    private int estimateBlackPoint(byte[] luminances, int width, int height) throws NotFoundException {
+        final int[] buckets = this.buckets;
+        for (int i = 0; i < LUMINANCE_BUCKETS; i++) {
+            buckets[i] = 0;
+        }
+
+        for (int y = 1; y < 5; y++) {
+            int offset = (height * y / 5) * width;
+            int right = (width * 4) / 5;
+            for (int x = width / 5; x < right; x++) {
+                int pixel = (luminances[offset + x] & 0xff) ^ invertMask;
+                buckets[pixel >> LUMINANCE_SHIFT]++;
+            }
+        }
+
+        // Find the tallest peak in the histogram.
+        int maxBucketCount = 0;
+        int firstPeak = 0;
+        int firstPeakSize = 0;
+        for (int x = 0; x < LUMINANCE_BUCKETS; x++) {
+            if (buckets[x] > firstPeakSize) {
+                firstPeak = x;
+                firstPeakSize = buckets[x];
+            }
+            if (buckets[x] > maxBucketCount) {
+                maxBucketCount = buckets[x];
+            }
+        }
+
+        // Find the second-tallest peak which is somewhat far from the tallest peak.
+        int secondPeak = 0;
+        int secondPeakScore = 0;
+        for (int x = 0; x < LUMINANCE_BUCKETS; x++) {
+            int distanceToBiggest = x - firstPeak;
+            // Encourage more distant second peaks by multiplying by square of distance.
+            int score = buckets[x] * distanceToBiggest * distanceToBiggest;
+            if (score > secondPeakScore) {
+                secondPeak = x;
+                secondPeakScore = score;
+            }
+        }
+
+        // Make sure firstPeak corresponds to the black peak.
+        if (firstPeak > secondPeak) {
+            int temp = firstPeak;
+            firstPeak = secondPeak;
+            secondPeak = temp;
+        }
+
+        // If there is too little contrast in the image to pick a meaningful black point,
+        // give up rather than waste time trying to decode the image.
+        if (secondPeak - firstPeak <= LUMINANCE_BUCKETS / 16) {
+            throw NotFoundException.getNotFoundInstance();
+        }
+
+        // Find a valley between them that is low and closer to the white peak.
+        int bestValley = secondPeak - 1;
+        int bestValleyScore = -1;
+        for (int x = secondPeak - 1; x > firstPeak; x--) {
+            int fromFirst = x - firstPeak;
+            int score = fromFirst * fromFirst * (secondPeak - x) * (maxBucketCount - buckets[x]);
+            if (score > bestValleyScore) {
+                bestValley = x;
+                bestValleyScore = score;
+            }
+        }
+
+        return bestValley << LUMINANCE_SHIFT;
+    }
+
+}
@@ -0,0 +1,125 @@
+/*
+ * Copyright (c) 2026 EFDIS AG Bankensoftware, Freising <info@efdis.de>.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package me.dm7.barcodescanner.zxing;
+
+import android.graphics.Rect;
+
+import com.google.zxing.LuminanceSource;
+
+/**
+ * Luminance of a cropped preview frame, like {@link com.google.zxing.PlanarYUVLuminanceSource},
+ * but reused for all frames with the same geometry.
+ * <p/>
+ * The luminance matrix of the crop is copied at most once per frame into the same array, even if
+ * several binarizers read it in parallel.
+ */
+final class ReusableYUVLuminanceSource extends LuminanceSource {
+
+    private final int dataWidth;
+    private final int dataHeight;
+    private final int left;
+    private final int top;
+
+    /** Y plane of the current frame, followed by the chroma planes */
+    private byte[] yuvData;
+
+    /** Reused copy of the crop, <code>null</code> if the crop is the complete frame */
+    private final byte[] matrix;
+    private boolean matrixValid;
+
+    ReusableYUVLuminanceSource(int dataWidth, int dataHeight, Rect crop) {
+        super(crop.width(), crop.height());
+
+        if (crop.left < 0 || crop.top < 0 || crop.right > dataWidth || crop.bottom > dataHeight) {
+            throw new IllegalArgumentException("Crop rectangle does not fit within image data.");
+        }
+
+        this.dataWidth = dataWidth;
+        this.dataHeight = dataHeight;
+        this.left = crop.left;
+        this.top = crop.top;
+
+        boolean completeFrame = crop.width() == dataWidth && crop.height() == dataHeight;
+        this.matrix = completeFrame ? null : new byte[crop.width() * crop.height()];
+    }
+
+    /**
+     * @return
+     *      <code>true</code>, if this source can be reused for a frame.
+     */
+    boolean hasGeometry(int dataWidth, int dataHeight, Rect crop) {
+        return this.dataWidth == dataWidth
+                && this.dataHeight == dataHeight
+                && left == crop.left
+                && top == crop.top
+                && getWidth() == crop.width()
+                && getHeight() == crop.height();
+    }
+
+    /**
+     * Use the luminance of another frame with the same geometry. This must not be called while
+     * the previous frame is read.
+     */
+    synchronized void setFrame(byte[] yuvData) {
+        if (yuvData.length < dataWidth * dataHeight) {
+            throw new IllegalArgumentException("Frame is too small");
+        }
+        this.yuvData = yuvData;
+        matrixValid = false;
+    }
+
+    @Override
+    public synchronized byte[] getRow(int y, byte[] row) {
+        if (y < 0 || y >= getHeight()) {
+            throw new IllegalArgumentException("Requested row is outside the image: " + y);
+        }
+
+        int width = getWidth();
+        if (row == null || row.length < width) {
+            row = new byte[width];
+        }
+        System.arraycopy(yuvData, (y + top) * dataWidth + left, row, 0, width);
+        return row;
+    }
+
+    /**
+     * @return
+     *      Luminance of the crop, which must not be modified and is only valid until the next
+     *      frame is set.
+     */
+    @Override
+    public synchronized byte[] getMatrix() {
+        if (matrix == null) {
+            // The Y plane is at the beginning of the frame
+            return yuvData;
+        }
+
+        if (!matrixValid) {
+            int width = getWidth();
+            int height = getHeight();
+            int inputOffset = top * dataWidth + left;
+            for (int y = 0; y < height; y++) {
+                System.arraycopy(yuvData, inputOffset, matrix, y * width, width);
+                inputOffset += dataWidth;
+            }
+            matrixValid = true;
+        }
+        return matrix;
+    }
+
+}
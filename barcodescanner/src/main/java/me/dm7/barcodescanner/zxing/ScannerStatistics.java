@@ -0,0 +1,126 @@
+/*
+ * Copyright (c) 2026 EFDIS AG Bankensoftware, Freising <info@efdis.de>.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package me.dm7.barcodescanner.zxing;
+
+/**
+ * Counters of the {@link QrCodeScannerView} for tuning the detection, which may be read from any
+ * thread.
+ */
+public class ScannerStatistics {
+
+    private long framesReceived;
+    private long framesDropped;
+    private long framesBlurry;
+    private long framesUnchanged;
+    private long framesRejected;
+    private long framesDecoded;
+    private long decodeTimeMillis;
+    private float lastSharpness;
+
+    synchronized void onFrameReceived() {
+        framesReceived++;
+    }
+
+    synchronized void onFrameDropped() {
+        framesDropped++;
+    }
+
+    synchronized void onFrameMeasured(float sharpness) {
+        lastSharpness = sharpness;
+    }
+
+    synchronized void onFrameBlurry() {
+        framesBlurry++;
+    }
+
+    synchronized void onFrameUnchanged() {
+        framesUnchanged++;
+    }
+
+    synchronized void onFrameRejected() {
+        framesRejected++;
+    }
+
+    synchronized void onFrameDecoded(long timeMillis) {
+        framesDecoded++;
+        decodeTimeMillis += timeMillis;
+    }
+
+    /** Number of preview frames passed to the scanner */
+    public synchronized long getFramesReceived() {
+        return framesReceived;
+    }
+
+    /** Number of preview frames, which have been replaced by a more recent frame before decoding */
+    public synchronized long getFramesDropped() {
+        return framesDropped;
+    }
+
+    /** Number of searched frames, which have been skipped below the minimum sharpness */
+    public synchronized long getFramesBlurry() {
+        return framesBlurry;
+    }
+
+    /** Number of searched frames, which have been skipped without a scene change */
+    public synchronized long getFramesUnchanged() {
+        return framesUnchanged;
+    }
+
+    /** Number of searched frames, which have been skipped without a finder pattern */
+    public synchronized long getFramesRejected() {
+        return framesRejected;
+    }
+
+    /** Number of preview frames, which have been searched for a QR code */
+    public synchronized long getFramesDecoded() {
+        return framesDecoded;
+    }
+
+    /** Total processing time of the decoded frames */
+    public synchronized long getDecodeTimeMillis() {
+        return decodeTimeMillis;
+    }
+
+    /** Gradient energy above the noise of the most recent frame, for tuning the sharpness */
+    public synchronized float getLastSharpness() {
+        return lastSharpness;
+    }
+
+    public synchronized void reset() {
+        framesReceived = 0;
+        framesDropped = 0;
+        framesBlurry = 0;
+        framesUnchanged = 0;
+        framesRejected = 0;
+        framesDecoded = 0;
+        decodeTimeMillis = 0;
+        lastSharpness = 0f;
+    }
+
+    @Override
+    public synchronized String toString() {
+        return "received=" + framesReceived
+                + ", dropped=" + framesDropped
+                + ", decoded=" + framesDecoded
+                + ", blurry=" + framesBlurry
+                + ", unchanged=" + framesUnchanged
+                + ", rejected=" + framesRejected
+                + ", decodeTime=" + decodeTimeMillis + "ms";
+    }
+
+}
@@ -0,0 +1,109 @@
+/*
+ * Copyright (c) 2026 EFDIS AG Bankensoftware, Freising <info@efdis.de>.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package me.dm7.barcodescanner.zxing;
+
+import com.google.zxing.WriterException;
+
+import junit.framework.TestCase;
+
+import org.junit.Test;
+
+import java.util.Random;
+
+public class FinderPatternPreFilterTest {
+
+    @Test
+    public void decodableQrCodesAreAccepted() throws WriterException {
+        Random random = new Random(1);
+        int decodable = 0;
+        for (int i = 0; i < 200; i++) {
+            byte[] frame = RenderedFrames.qrCodeFrame(random);
+            if (RenderedFrames.isDecodable(frame)) {
+                decodable++;
+                TestCase.assertTrue("QR code " + i + " rejected",
+                        FinderPatternPreFilter.mayContainFinderPattern(frame,
+                                RenderedFrames.WIDTH, RenderedFrames.HEIGHT));
+            }
+        }
+
+        // Some frames are too blurry or have too little contrast for ZXing
+        TestCase.assertTrue("only " + decodable + " QR codes decodable", decodable > 80);
+    }
+
+    @Test
+    public void smallQrCodesInLargeFramesAreAccepted() throws WriterException {
+        // The framing rectangle of a high-resolution preview with a distant QR code
+        final int size = 720;
+        Random random = new Random(3);
+        int decodable = 0;
+        for (int i = 0; i < 40; i++) {
+            byte[] frame = RenderedFrames.qrCodeFrame(random, size, size, 2, 3, 0, 1);
+            if (RenderedFrames.isDecodable(frame, size, size)) {
+                decodable++;
+                TestCase.assertTrue("QR code " + i + " rejected",
+                        FinderPatternPreFilter.mayContainFinderPattern(frame, size, size));
+            }
+        }
+        TestCase.assertTrue("only " + decodable + " QR codes decodable", decodable > 10);
+    }
+
+    @Test
+    public void smallFinderPatternAtAnyPosition() {
+        // A single axis-aligned finder pattern with the smallest module size, and nothing else
+        // which might look like one
+        final int size = 720;
+        final int moduleSize = 2;
+        for (int position = 300; position < 320; position++) {
+            byte[] frame = new byte[size * size];
+            for (int y = 0; y < size; y++) {
+                for (int x = 0; x < size; x++) {
+                    int u = (x - position) / moduleSize;
+                    int v = (y - position) / moduleSize;
+                    boolean dark = x >= position && y >= position && u < 7 && v < 7
+                            && (Math.max(Math.abs(u - 3), Math.abs(v - 3)) != 2);
+                    frame[y * size + x] = (byte) (dark ? 40 : 200);
+                }
+            }
+            TestCase.assertTrue("finder pattern at " + position + " rejected",
+                    FinderPatternPreFilter.mayContainFinderPattern(frame, size, size));
+        }
+    }
+
+    @Test
+    public void noisyEmptyFramesAreRejected() {
+        Random random = new Random(2);
+        for (double noise : new double[]{0, 3, 4, 6}) {
+            for (int i = 0; i < 50; i++) {
+                byte[] frame = RenderedFrames.emptyFrame(random, noise);
+                TestCase.assertFalse("empty frame " + i + " with noise " + noise + " accepted",
+                        FinderPatternPreFilter.mayContainFinderPattern(frame,
+                                RenderedFrames.WIDTH, RenderedFrames.HEIGHT));
+            }
+        }
+    }
+
+    @Test
+    public void smallFrames() {
+        // Lines at the border of the frame have no neighbor to average with
+        for (int size = 1; size < 16; size++) {
+            TestCase.assertFalse(FinderPatternPreFilter.mayContainFinderPattern(
+                    new byte[size * size], size, size));
+        }
+    }
+
+}
@@ -0,0 +1,160 @@
+/*
+ * Copyright (c) 2026 EFDIS AG Bankensoftware, Freising <info@efdis.de>.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+
+package me.dm7.barcodescanner.zxing;
+
+import com.google.zxing.WriterException;
+
+import junit.framework.TestCase;
+
+import org.junit.Test;
+
+import java.util.Random;
+
+public class FrameQualityGateTest {
+
+    private static boolean accept(FrameQualityGate gate, byte[] frame) {
+        return gate.accept(frame, RenderedFrames.WIDTH,
+                0, 0, RenderedFrames.WIDTH, RenderedFrames.HEIGHT);
+    }
+
+    private static byte[] decodableQrCodeFrame(Random random) throws WriterException {
+        byte[] frame;
+        do {
+            frame = RenderedFrames.qrCodeFrame(random);
+        } while (!RenderedFrames.isDecodable(frame));
+        return frame;
+    }
+
+    @Test
+    public void decodableQrCodesAreSharp() throws WriterException {
+        Random random = new Random(1);
+        int decodable = 0;
+        for (int i = 0; i < 200; i++) {
+            byte[] frame = RenderedFrames.qrCodeFrame(random);
+            if (RenderedFrames.isDecodable(frame)) {
+                decodable++;
+                FrameQualityGate gate = new FrameQualityGate(new ScannerStatistics());
+                TestCase.assertTrue("QR code " + i + " skipped", accept(gate, frame));
+            }
+        }
+        TestCase.assertTrue("only " + decodable + " QR codes decodable", decodable > 80);
+    }
+
+    @Test
+    public void noisyEmptyFramesAreBlurry() {
+        Random random = new Random(2);
+        ScannerStatistics statistics = new ScannerStatistics();
+        FrameQualityGate gate = new FrameQualityGate(statistics);
+        for (double noise : new double[]{0, 4, 8}) {
+            for (int i = 0; i < 40; i++) {
+                TestCase.assertFalse("empty frame " + i + " with noise " + noise + " decoded",
+                        accept(gate, RenderedFrames.emptyFrame(random, noise)));
+            }
+        }
+        TestCase.assertEquals(120, statistics.getFramesBlurry());
+    }
+
+    @Test
+    public void defocusedQrCodesAreMostlyBlurry() throws WriterException {
+        Random random = new Random(3);
+        ScannerStatistics statistics = new ScannerStatistics();
+        FrameQualityGate gate = new FrameQualityGate(statistics);
+        int defocused = 0;
+        for (int i = 0; i < 100; i++) {
+            byte[] frame = RenderedFrames.qrCodeFrame(random, 5, 9);
+            if (!RenderedFrames.isDecodable(frame)) {
+                defocused++;
+                gate.reset();
+                accept(gate, frame);
+            }
+        }
+
+        // Defocused QR codes with large modules and high contrast keep some sharp edges
+        TestCase.assertTrue(statistics.getFramesBlurry() + " of " + defocused + " skipped",
+                statistics.getFramesBlurry() > defocused * 2 / 3);
+    }
+
+    @Test
+    public void stillFramesAreSkippedAtMostTwice() throws WriterException {
+        Random random = new Random(4);
+        ScannerStatistics statistics = new ScannerStatistics();
+        FrameQualityGate gate = new FrameQualityGate(statistics);
+        byte[] frame = decodableQrCodeFrame(random);
+        TestCase.assertTrue(accept(gate, frame));
+        for (int i = 0; i < 3; i++) {
+            for (int skipped = 0; skipped < FrameQualityGate.MAX_SKIPPED_FRAMES; skipped++) {
+                TestCase.assertFalse(accept(gate, RenderedFrames.withNoise(frame, random, 4)));
+            }
+            TestCase.assertTrue(accept(gate, RenderedFrames.withNoise(frame, random, 4)));
+        }
+        TestCase.assertEquals(3 * FrameQualityGate.MAX_SKIPPED_FRAMES,
+                statistics.getFramesUnchanged());
+    }
+
+    @Test
+    public void changedScenesAreDecoded() throws WriterException {
+        Random random = new Random(5);
+        for (int i = 0; i < 20; i++) {
+            FrameQualityGate gate = new FrameQualityGate(new ScannerStatistics());
+            byte[] frame = decodableQrCodeFrame(random);
+            TestCase.assertTrue(accept(gate, frame));
+            TestCase.assertTrue("QR code " + i + " moved",
+                    accept(gate, RenderedFrames.shifted(frame, 4, 3)));
+            TestCase.assertTrue("QR code " + i + " replaced",
+                    accept(gate, decodableQrCodeFrame(random)));
+        }
+    }
+
+    @Test
+    public void sharperFramesAreDecoded() throws WriterException {
+        for (int seed = 0; seed < 20; seed++) {
+            // The same QR code with and without blur
+            byte[] blurred = RenderedFrames.qrCodeFrame(new Random(seed), 1, 1);
+            byte[] sharp = RenderedFrames.qrCodeFrame(new Random(seed), 0, 0);
+
+            FrameQualityGate gate = new FrameQualityGate(new ScannerStatistics());
+            gate.setMinSharpness(0f);
+            TestCase.assertTrue(accept(gate, blurred));
+            TestCase.assertFalse("QR code " + seed + " changed", accept(gate, blurred));
+            TestCase.assertTrue("QR code " + seed + " not sharper", accept(gate, sharp));
+        }
+    }
+
+    @Test
+    public void resetForgetsLastFrame() throws WriterException {
+        FrameQualityGate gate = new FrameQualityGate(new ScannerStatistics());
+        byte[] frame = decodableQrCodeFrame(new Random(6));
+        TestCase.assertTrue(accept(gate, frame));
+        TestCase.assertFalse(accept(gate, frame));
+        gate.reset();
+        TestCase.assertTrue(accept(gate, frame));
+    }
+
+    @Test
+    public void smallFrames() {
+        FrameQualityGate gate = new FrameQualityGate(new ScannerStatistics());
+        gate.setMinSharpness(0f);
+        for (int size = 0; size < 8; size++) {
+            byte[] frame = new byte[size * size];
+            gate.reset();
+            TestCase.assertTrue(gate.accept(frame, size, 0, 0, size, size));
+        }
+    }
+
+}
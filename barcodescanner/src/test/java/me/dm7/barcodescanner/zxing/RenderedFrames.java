@@ -0,0 +1,227 @@
+/*
+ * Copyright (c) 2026 EFDIS AG Bankensoftware, Freising <info@efdis.de>.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package me.dm7.barcodescanner.zxing;
+
+import com.google.zxing.BarcodeFormat;
+import com.google.zxing.BinaryBitmap;
+import com.google.zxing.EncodeHintType;
+import com.google.zxing.LuminanceSource;
+import com.google.zxing.PlanarYUVLuminanceSource;
+import com.google.zxing.ReaderException;
+import com.google.zxing.WriterException;
+import com.google.zxing.common.BitMatrix;
+import com.google.zxing.common.HybridBinarizer;
+import com.google.zxing.qrcode.QRCodeReader;
+import com.google.zxing.qrcode.QRCodeWriter;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * Synthetic preview frames for testing the detection, by default of {@link #WIDTH} x
+ * {@link #HEIGHT} pixels.
+ */
+final class RenderedFrames {
+
+    static final int WIDTH = 240;
+    static final int HEIGHT = 240;
+
+    /** Pixels are rendered with 3x3 samples, so that edges are anti-aliased like in a photo */
+    private static final int SUPERSAMPLING = 3;
+
+    private static byte[] toLuminances(double[] pixels, Random random, double noise) {
+        byte[] luminances = new byte[pixels.length];
+        for (int i = 0; i < pixels.length; i++) {
+            long pixel = Math.round(pixels[i] + random.nextGaussian() * noise);
+            luminances[i] = (byte) Math.max(0, Math.min(255, pixel));
+        }
+        return luminances;
+    }
+
+    /** Add sensor noise to a frame, e. g., for a still picture */
+    static byte[] withNoise(byte[] frame, Random random, double noise) {
+        double[] pixels = new double[frame.length];
+        for (int i = 0; i < frame.length; i++) {
+            pixels[i] = frame[i] & 0xff;
+        }
+        return toLuminances(pixels, random, noise);
+    }
+
+    /** Move the content of a frame to the right and down, repeating the first row and column */
+    static byte[] shifted(byte[] frame, int shiftX, int shiftY) {
+        byte[] shifted = new byte[frame.length];
+        for (int y = 0; y < HEIGHT; y++) {
+            for (int x = 0; x < WIDTH; x++) {
+                shifted[y * WIDTH + x] = frame[Math.max(0, y - shiftY) * WIDTH
+                        + Math.max(0, x - shiftX)];
+            }
+        }
+        return shifted;
+    }
+
+    /** Uniform background with a slight gradient */
+    static byte[] emptyFrame(Random random, double noise) {
+        double background = 40 + random.nextInt(170);
+        double gradientX = random.nextDouble() * 30 - 15;
+        double gradientY = random.nextDouble() * 30 - 15;
+
+        double[] pixels = new double[WIDTH * HEIGHT];
+        for (int y = 0; y < HEIGHT; y++) {
+            for (int x = 0; x < WIDTH; x++) {
+                pixels[y * WIDTH + x] = background + gradientX * x / WIDTH + gradientY * y / HEIGHT;
+            }
+        }
+        return toLuminances(pixels, random, noise);
+    }
+
+    private RenderedFrames() {
+    }
+
+    /**
+     * Render a random QR code with random size, position, rotation, contrast and polarity, and
+     * possibly with glare and blur.
+     */
+    static byte[] qrCodeFrame(Random random) throws WriterException {
+        return qrCodeFrame(random, 0, 2);
+    }
+
+    /**
+     * @param minBlur
+     *      Minimum radius of the box blur, e. g., for a defocused camera.
+     * @param maxBlur
+     *      Maximum radius of the box blur.
+     */
+    static byte[] qrCodeFrame(Random random, int minBlur, int maxBlur) throws WriterException {
+        return qrCodeFrame(random, WIDTH, HEIGHT, 2.5, 10, minBlur, maxBlur);
+    }
+
+    /**
+     * @param minModuleSize
+     *      Minimum size of a module in pixels.
+     * @param maxModuleSize
+     *      Maximum size of a module in pixels, unless the QR code would not fit into the frame.
+     */
+    static byte[] qrCodeFrame(Random random, int width, int height,
+                              double minModuleSize, double maxModuleSize,
+                              int minBlur, int maxBlur) throws WriterException {
+        StringBuilder content = new StringBuilder();
+        int length = 20 + random.nextInt(200);
+        for (int i = 0; i < length; i++) {
+            content.append((char) ('A' + random.nextInt(26)));
+        }
+        Map<EncodeHintType, Object> hints = Collections.singletonMap(EncodeHintType.MARGIN, 0);
+        BitMatrix code = new QRCodeWriter().encode(content.toString(), BarcodeFormat.QR_CODE,
+                0, 0, hints);
+        int modules = code.getWidth();
+
+        // The rotated code fits into the frame
+        int size = Math.min(width, height);
+        double fittingModuleSize = Math.min(maxModuleSize, size / (modules * Math.sqrt(2)));
+        double moduleSize = minModuleSize
+                + random.nextDouble() * (fittingModuleSize - minModuleSize);
+        double margin = (size - modules * moduleSize * Math.sqrt(2)) / 2;
+        double centerX = width / 2.0 + (random.nextDouble() - 0.5) * margin;
+        double centerY = height / 2.0 + (random.nextDouble() - 0.5) * margin;
+        double angle = random.nextDouble() * Math.PI / 2;
+        double cos = Math.cos(angle);
+        double sin = Math.sin(angle);
+
+        int dark = 10 + random.nextInt(80);
+        int light = dark + 40 + random.nextInt(165 - dark);
+        if (random.nextInt(4) == 0) {
+            int inverted = dark;
+            dark = light;
+            light = inverted;
+        }
+
+        boolean glare = random.nextBoolean();
+        double glareX = random.nextDouble() * width;
+        double glareY = random.nextDouble() * height;
+        double glareRadius = width * (0.1 + random.nextDouble() * 0.3);
+        double glareIntensity = random.nextDouble() * 150;
+
+        double[] pixels = new double[width * height];
+        for (int y = 0; y < height; y++) {
+            for (int x = 0; x < width; x++) {
+                double sum = 0;
+                for (int sy = 0; sy < SUPERSAMPLING; sy++) {
+                    for (int sx = 0; sx < SUPERSAMPLING; sx++) {
+                        double dx = x + (sx + 0.5) / SUPERSAMPLING - centerX;
+                        double dy = y + (sy + 0.5) / SUPERSAMPLING - centerY;
+                        double u = (cos * dx + sin * dy) / moduleSize + modules / 2.0;
+                        double v = (cos * dy - sin * dx) / moduleSize + modules / 2.0;
+                        boolean black = u >= 0 && v >= 0 && u < modules && v < modules
+                                && code.get((int) u, (int) v);
+                        sum += black ? dark : light;
+                    }
+                }
+                pixels[y * width + x] = sum / (SUPERSAMPLING * SUPERSAMPLING);
+
+                if (glare) {
+                    double distance = Math.hypot(x - glareX, y - glareY) / glareRadius;
+                    pixels[y * width + x] += glareIntensity * Math.exp(-distance * distance);
+                }
+            }
+        }
+
+        int blur = minBlur + random.nextInt(maxBlur - minBlur + 1);
+        if (blur > 0) {
+            pixels = boxBlur(pixels, width, height, blur);
+        }
+
+        return toLuminances(pixels, random, random.nextDouble() * 6);
+    }
+
+    private static double[] boxBlur(double[] pixels, int width, int height, int radius) {
+        double[] blurred = new double[pixels.length];
+        for (int y = 0; y < height; y++) {
+            for (int x = 0; x < width; x++) {
+                double sum = 0;
+                int count = 0;
+                for (int yy = Math.max(0, y - radius); yy <= Math.min(height - 1, y + radius); yy++) {
+                    for (int xx = Math.max(0, x - radius); xx <= Math.min(width - 1, x + radius); xx++) {
+                        sum += pixels[yy * width + xx];
+                        count++;
+                    }
+                }
+                blurred[y * width + x] = sum / count;
+            }
+        }
+        return blurred;
+    }
+
+    static boolean isDecodable(byte[] frame) {
+        return isDecodable(frame, WIDTH, HEIGHT);
+    }
+
+    static boolean isDecodable(byte[] frame, int width, int height) {
+        LuminanceSource source = new PlanarYUVLuminanceSource(frame, width, height,
+                0, 0, width, height, false);
+        for (LuminanceSource polarity : new LuminanceSource[]{source, source.invert()}) {
+            try {
+                new QRCodeReader().decode(new BinaryBitmap(new HybridBinarizer(polarity)));
+                return true;
+            } catch (ReaderException e) {
+                // try the other polarity
+            }
+        }
+        return false;
+    }
+
+}
@@ -0,0 +1,164 @@
+/*
+ * Copyright (c) 2026 EFDIS AG Bankensoftware, Freising <info@efdis.de>.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package me.dm7.barcodescanner.zxing;
+
+import com.google.zxing.Binarizer;
+import com.google.zxing.LuminanceSource;
+import com.google.zxing.NotFoundException;
+import com.google.zxing.common.BitMatrix;
+import com.google.zxing.common.GlobalHistogramBinarizer;
+import com.google.zxing.common.HybridBinarizer;
+
+import junit.framework.TestCase;
+
+import org.junit.Test;
+
+import java.util.Random;
+
+public class ReusableBinarizerTest {
+
+    /** Image sizes below the minimum for local thresholds, and not divisible by the block size */
+    private static final int[][] SIZES = {
+            {20, 30}, {39, 64}, {40, 40}, {41, 57}, {64, 48}, {123, 77}, {320, 240},
+    };
+
+    private static final int FRAMES_PER_SIZE = 8;
+
+    /** Frame, whose luminance may be replaced, like the preview frames */
+    private static final class FrameSource extends LuminanceSource {
+        final byte[] luminances;
+
+        FrameSource(int width, int height) {
+            super(width, height);
+            luminances = new byte[width * height];
+        }
+
+        @Override
+        public byte[] getRow(int y, byte[] row) {
+            if (row == null || row.length < getWidth()) {
+                row = new byte[getWidth()];
+            }
+            System.arraycopy(luminances, y * getWidth(), row, 0, getWidth());
+            return row;
+        }
+
+        @Override
+        public byte[] getMatrix() {
+            return luminances;
+        }
+    }
+
+    /**
+     * Fill the frame with dark and light rectangles on a gradient, with some noise. This creates
+     * blocks with high and low dynamic range.
+     */
+    private static void randomFrame(Random random, FrameSource frame) {
+        int width = frame.getWidth();
+        int height = frame.getHeight();
+        int background = 64 + random.nextInt(128);
+        int gradient = random.nextInt(64);
+        int noise = random.nextInt(16);
+
+        int[] pixels = new int[width * height];
+        for (int y = 0; y < height; y++) {
+            for (int x = 0; x < width; x++) {
+                pixels[y * width + x] = background + gradient * x / width;
+            }
+        }
+
+        int rectangles = random.nextInt(32);
+        for (int i = 0; i < rectangles; i++) {
+            int left = random.nextInt(width);
+            int top = random.nextInt(height);
+            int right = Math.min(width, left + 1 + random.nextInt(width / 2 + 1));
+            int bottom = Math.min(height, top + 1 + random.nextInt(height / 2 + 1));
+            int luminance = random.nextInt(256);
+            for (int y = top; y < bottom; y++) {
+                for (int x = left; x < right; x++) {
+                    pixels[y * width + x] = luminance;
+                }
+            }
+        }
+
+        for (int i = 0; i < pixels.length; i++) {
+            int pixel = pixels[i] + (noise == 0 ? 0 : random.nextInt(2 * noise + 1) - noise);
+            frame.luminances[i] = (byte) Math.max(0, Math.min(255, pixel));
+        }
+    }
+
+    private static BitMatrix getBlackMatrix(Binarizer binarizer) {
+        try {
+            return binarizer.getBlackMatrix();
+        } catch (NotFoundException e) {
+            return null;
+        }
+    }
+
+    private static void assertSameMatrix(String message, Binarizer expected, Binarizer actual) {
+        BitMatrix expectedMatrix = getBlackMatrix(expected);
+        BitMatrix actualMatrix = getBlackMatrix(actual);
+        if (expectedMatrix == null) {
+            TestCase.assertNull(message + ": no black point expected", actualMatrix);
+        } else {
+            TestCase.assertEquals(message, expectedMatrix, actualMatrix);
+        }
+    }
+
+    private static void checkMethod(ReusableBinarizer.Method method, boolean inverted) {
+        Random random = new Random(method.ordinal() * 2 + (inverted ? 1 : 0));
+
+        for (int[] size : SIZES) {
+            FrameSource frame = new FrameSource(size[0], size[1]);
+            ReusableBinarizer binarizer = new ReusableBinarizer(frame, method, inverted);
+
+            // The same binarizer is reused for all frames
+            for (int i = 0; i < FRAMES_PER_SIZE; i++) {
+                randomFrame(random, frame);
+
+                LuminanceSource source = inverted ? frame.invert() : frame;
+                Binarizer expected = method == ReusableBinarizer.Method.LOCAL_THRESHOLDS
+                        ? new HybridBinarizer(source)
+                        : new GlobalHistogramBinarizer(source);
+
+                assertSameMatrix(method + (inverted ? " inverted " : " ")
+                        + size[0] + "x" + size[1] + " frame " + i, expected, binarizer);
+            }
+        }
+    }
+
+    @Test
+    public void localThresholds() {
+        checkMethod(ReusableBinarizer.Method.LOCAL_THRESHOLDS, false);
+    }
+
+    @Test
+    public void localThresholdsInverted() {
+        checkMethod(ReusableBinarizer.Method.LOCAL_THRESHOLDS, true);
+    }
+
+    @Test
+    public void globalThreshold() {
+        checkMethod(ReusableBinarizer.Method.GLOBAL_THRESHOLD, false);
+    }
+
+    @Test
+    public void globalThresholdInverted() {
+        checkMethod(ReusableBinarizer.Method.GLOBAL_THRESHOLD, true);
+    }
+
+}